@@ -0,0 +1,55 @@
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.provider.Property;
+
+/**
+ * Configuration of the automaticCSV block of a build script.
+ *
+ * automaticCSV {
+ *     csvFiles.from('data/menu.csv', 'data/bitcoin.csv')
+ *     heuristicTyping = true
+ *     samplingStrategy = 'STRATIFIED'
+ * }
+ */
+public abstract class AutomaticCSVExtension {
+
+    /**
+     * Sample CSV files to generate classes for. Each class is named after its file, as at runtime.
+     */
+    public abstract ConfigurableFileCollection getCsvFiles();
+
+    /**
+     * Directory the generated sources are written to. Defaults to build/generated/sources/automaticCSV/java/main.
+     */
+    public abstract DirectoryProperty getOutputDir();
+
+    /**
+     * Delimeter of the CSV files. Defaults to ",".
+     */
+    public abstract Property<String> getDelimeter();
+
+    /**
+     * Determine field types from a sample of rows. Defaults to false.
+     */
+    public abstract Property<Boolean> getHeuristicTyping();
+
+    /**
+     * Name of the SamplingStrategy used with heuristicTyping. Defaults to "FIRST_ROWS".
+     */
+    public abstract Property<String> getSamplingStrategy();
+
+    /**
+     * Number of rows sampled with heuristicTyping. Defaults to 100.
+     */
+    public abstract Property<Integer> getSampleSize();
+
+    /**
+     * Generate int, double and boolean fields with missing values tracked per object. Defaults to false.
+     */
+    public abstract Property<Boolean> getPrimitiveFields();
+
+    /**
+     * Generate a View class for reading the rows of readOffHeap(). Defaults to false.
+     */
+    public abstract Property<Boolean> getOffHeapView();
+}
@@ -0,0 +1,79 @@
+import org.gradle.api.Plugin;
+import org.gradle.api.Project;
+import org.gradle.api.plugins.JavaPlugin;
+import org.gradle.api.tasks.JavaExec;
+import org.gradle.api.tasks.SourceSetContainer;
+import org.gradle.api.tasks.TaskProvider;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates AutomaticCSV classes at build time, so applications start without inferring datatypes or compiling classes at runtime.
+ *
+ * The generateCSVClasses task runs CSVClassGenerator from the AutomaticCSV dependency of the project over the configured CSV files, with
+ * the same datatype inference as AutoReadCSV. The generated sources are added to the main source set and compiled with the rest of the
+ * project. Generated classes are marked with @CSVGenerated, so AutoReadCSV uses them as they are.
+ */
+public class AutomaticCSVPlugin implements Plugin<Project> {
+
+    @Override
+    public void apply(Project project) {
+        project.getPluginManager().apply(JavaPlugin.class);
+
+        AutomaticCSVExtension extension = project.getExtensions().create("automaticCSV", AutomaticCSVExtension.class);
+        extension.getOutputDir().convention(project.getLayout().getBuildDirectory().dir("generated/sources/automaticCSV/java/main"));
+        extension.getDelimeter().convention(",");
+        extension.getHeuristicTyping().convention(false);
+        extension.getSamplingStrategy().convention("FIRST_ROWS");
+        extension.getSampleSize().convention(100);
+        extension.getPrimitiveFields().convention(false);
+        extension.getOffHeapView().convention(false);
+
+        TaskProvider<JavaExec> generateCSVClasses = project.getTasks().register("generateCSVClasses", JavaExec.class, task -> {
+            task.setGroup("build");
+            task.setDescription("Generates AutomaticCSV classes from the configured CSV files.");
+            task.getMainClass().set("CSVClassGenerator");
+            //dependencies only, the compiled classes of the project depend on this task
+            task.setClasspath(project.getConfigurations().getByName(JavaPlugin.RUNTIME_CLASSPATH_CONFIGURATION_NAME));
+            task.getInputs().files(extension.getCsvFiles()).withPropertyName("csvFiles");
+            task.getInputs().property("delimeter", extension.getDelimeter());
+            task.getInputs().property("heuristicTyping", extension.getHeuristicTyping());
+            task.getInputs().property("samplingStrategy", extension.getSamplingStrategy());
+            task.getInputs().property("sampleSize", extension.getSampleSize());
+            task.getInputs().property("primitiveFields", extension.getPrimitiveFields());
+            task.getInputs().property("offHeapView", extension.getOffHeapView());
+            task.getOutputs().dir(extension.getOutputDir()).withPropertyName("outputDir");
+            task.getArgumentProviders().add(() -> {
+                List<String> args = new ArrayList<>();
+                args.add(extension.getOutputDir().get().getAsFile().getPath());
+                args.add("--delimeter=" + extension.getDelimeter().get());
+                if(extension.getHeuristicTyping().get())
+                {
+                    args.add("--heuristic-typing");
+                }
+                args.add("--sampling-strategy=" + extension.getSamplingStrategy().get());
+                args.add("--sample-size=" + extension.getSampleSize().get());
+                if(extension.getPrimitiveFields().get())
+                {
+                    args.add("--primitive-fields");
+                }
+                if(extension.getOffHeapView().get())
+                {
+                    args.add("--off-heap-view");
+                }
+                for(File csv: extension.getCsvFiles())
+                {
+                    args.add(csv.getPath());
+                }
+                return args;
+            });
+            //remove classes of CSV files that are no longer configured
+            task.doFirst(t -> project.delete(extension.getOutputDir()));
+        });
+
+        SourceSetContainer sourceSets = project.getExtensions().getByType(SourceSetContainer.class);
+        sourceSets.getByName("main").getJava().srcDir(generateCSVClasses);
+    }
+}
@@ -3,18 +3,23 @@ import javax.tools.StandardJavaFileManager;
 import javax.tools.StandardLocation;
 import javax.tools.ToolProvider;
 import java.io.*;
-import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.net.URL;
-import java.time.DateTimeException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Allows user to read a CSV file (headers assumed) and parse into an ArrayList of Java objects, with no existing class infrastructure.
@@ -55,7 +60,7 @@ public class AutoReadCSV implements ReadCSV {
     private String csvClassName;
 
     /**
-     * Delimeter used in the csv file. Defaults to ",".
+     * Delimeter used in the csv file, a single character. Defaults to ",".
      */
     private String delimeter;
 
@@ -82,6 +87,113 @@ public class AutoReadCSV implements ReadCSV {
      * Determine field types based on first 100 rows of csv. Best for large, well formatted files.
      */
     private Boolean heuristicTyping;
+
+    /**
+     * Rows sampled to determine field types when heuristicTyping is enabled. Defaults to the first rows of the csv.
+     */
+    private SamplingStrategy samplingStrategy;
+
+    /**
+     * Number of rows sampled to determine field types when heuristicTyping is enabled. Defaults to 100.
+     */
+    private Integer sampleSize;
+
+    /**
+     * Check the field types determined from a sample against every row of the csv in the background. Defaults to false.
+     */
+    private Boolean verifySampledTypes;
+
+    /**
+     * Names of the columns whose sampled type did not match the type of the full csv, completed by the background check.
+     */
+    private CompletableFuture<List<String>> sampledTypeVerification;
+
+    /**
+     * Parse local CSV files in parallel by memory-mapping the file and splitting it into record-aligned byte ranges.
+     * The ranges are also typed in parallel when the class of the CSV is first generated, unless heuristicTyping is enabled.
+     * Best for large local files. Has no effect on CSVs read from a URL.
+     */
+    private Boolean parallelParsing;
+
+    /**
+     * Compile the generated CSV class in memory and load it with a dedicated ClassLoader, instead of writing it to srcDirPath and
+     * compiling it into buildDirPath. For packaged applications without a source or build directory. Defaults to false.
+     */
+    private Boolean inMemoryCompilation;
+
+    /**
+     * With inMemoryCompilation, also write the generated source to srcDirPath so it can be added to the project. Defaults to false.
+     */
+    private Boolean writeGeneratedSource;
+
+    /**
+     * Generate int, double and boolean fields instead of Integer, Double and Boolean, with missing values recorded in a bit mask per
+     * object. Empty cells, and cells that are not of the column datatype, are read as missing instead of failing the read. Defaults to false.
+     */
+    private Boolean primitiveFields;
+
+    /**
+     * Also generate a View class nested in the CSV class, a flyweight that reads the rows of readOffHeap() in place, with Comparators
+     * and Predicates of its own. Defaults to false.
+     */
+    private Boolean offHeapView;
+
+    /**
+     * Keep a local copy of CSVs read from a URL in urlCacheDirPath, so each read downloads the CSV at most once, and not at all if it has
+     * not changed since the last read (checked with ETag/If-Modified-Since). Defaults to true. Only applies to http and https URLs.
+     */
+    private Boolean urlCaching;
+
+    /**
+     * Directory of the URL cache. Defaults to automaticcsv-url-cache in the temporary directory of the system.
+     */
+    private String urlCacheDirPath;
+
+    /**
+     * Size of the URL cache above which the least recently used CSVs are deleted. Defaults to 256 MB.
+     */
+    private Long urlCacheMaxBytes;
+
+    /**
+     * Number of connections used at once to download a CSV from a URL, each requesting an HTTP Range of urlSegmentBytes. Parsing starts as
+     * soon as the first segment arrives. Servers that do not support Range requests are read through one connection. Defaults to 4, 1 to
+     * always download through one connection.
+     */
+    private Integer urlConnections;
+
+    /**
+     * Bytes requested by each connection of a segmented download, from 1 byte to Integer.MAX_VALUE, as a segment is held in an array.
+     * Defaults to 8 MB.
+     */
+    private Long urlSegmentBytes;
+
+    /**
+     * Hand the rows already in the CSV to a follower before the rows appended after it was opened. Defaults to false, only new rows.
+     */
+    private Boolean followFromStart;
+
+    /**
+     * Longest time between two polls of a followed CSV, for file systems where changes are not reported by a WatchService. Defaults to 500.
+     */
+    private Long followPollMillis;
+
+    /**
+     * Rows between two rows whose byte offset is kept in the row index of the CSV, see buildIndex(). readRows() skips at most this many
+     * rows to reach the first row of a range. Defaults to 1000.
+     */
+    private Integer rowIndexInterval;
+
+    //row index of the CSV, kept while it matches the file
+    private CSVRowIndex rowIndex;
+
+    //local copy of the URL for the read in progress, set by refreshURLCache()
+    private File cachedURLFile;
+
+    /**
+     * Consecutive rows read at each offset of a STRATIFIED sample.
+     */
+    private static final int ROWS_PER_STRATUM = 10;
+
     /**
      * Default Constructor
      */
@@ -103,6 +215,22 @@ public class AutoReadCSV implements ReadCSV {
         this.buildDirPath = "build/classes/java/main/";
         this.srcDirPath = "src/main/java/";
         this.heuristicTyping = false;
+        this.samplingStrategy = SamplingStrategy.FIRST_ROWS;
+        this.sampleSize = 100;
+        this.verifySampledTypes = false;
+        this.parallelParsing = false;
+        this.inMemoryCompilation = false;
+        this.writeGeneratedSource = false;
+        this.primitiveFields = false;
+        this.offHeapView = false;
+        this.urlCaching = true;
+        this.urlCacheDirPath = new File(System.getProperty("java.io.tmpdir"), "automaticcsv-url-cache").getPath();
+        this.urlCacheMaxBytes = 256L * 1024 * 1024;
+        this.urlConnections = 4;
+        this.urlSegmentBytes = 8L * 1024 * 1024;
+        this.followFromStart = false;
+        this.followPollMillis = 500L;
+        this.rowIndexInterval = 1000;
     }
 
     /**
@@ -118,6 +246,22 @@ public class AutoReadCSV implements ReadCSV {
         this.buildDirPath = "build/classes/java/main/";
         this.srcDirPath = "src/main/java/";
         this.heuristicTyping = false;
+        this.samplingStrategy = SamplingStrategy.FIRST_ROWS;
+        this.sampleSize = 100;
+        this.verifySampledTypes = false;
+        this.parallelParsing = false;
+        this.inMemoryCompilation = false;
+        this.writeGeneratedSource = false;
+        this.primitiveFields = false;
+        this.offHeapView = false;
+        this.urlCaching = true;
+        this.urlCacheDirPath = new File(System.getProperty("java.io.tmpdir"), "automaticcsv-url-cache").getPath();
+        this.urlCacheMaxBytes = 256L * 1024 * 1024;
+        this.urlConnections = 4;
+        this.urlSegmentBytes = 8L * 1024 * 1024;
+        this.followFromStart = false;
+        this.followPollMillis = 500L;
+        this.rowIndexInterval = 1000;
     }
 
     /**
@@ -134,6 +278,22 @@ public class AutoReadCSV implements ReadCSV {
         this.csvFileURL = csvFileURL;
         this.csvClassName = createClassName(preferredFileName);
         this.heuristicTyping = false;
+        this.samplingStrategy = SamplingStrategy.FIRST_ROWS;
+        this.sampleSize = 100;
+        this.verifySampledTypes = false;
+        this.parallelParsing = false;
+        this.inMemoryCompilation = false;
+        this.writeGeneratedSource = false;
+        this.primitiveFields = false;
+        this.offHeapView = false;
+        this.urlCaching = true;
+        this.urlCacheDirPath = new File(System.getProperty("java.io.tmpdir"), "automaticcsv-url-cache").getPath();
+        this.urlCacheMaxBytes = 256L * 1024 * 1024;
+        this.urlConnections = 4;
+        this.urlSegmentBytes = 8L * 1024 * 1024;
+        this.followFromStart = false;
+        this.followPollMillis = 500L;
+        this.rowIndexInterval = 1000;
     }
 
     /**
@@ -143,616 +303,1036 @@ public class AutoReadCSV implements ReadCSV {
      * @return ArrayList of Objects storing the CSV data.
      */
     public <T> ArrayList<T> readCSV()  {
+        refreshURLCache();
+        Class CSVClass = resolveCSVClass();
+        if(CSVClass == null)
+        {
+            return null;
+        }
+        return readCSVfromClass(CSVClass);
+    }
 
-        try
-            {
-                //Check to see if class already exists
-                Class CSVClass = Class.forName(csvClassName);
-                //make sure class does not only exist as a lingering build file.
-                FileReader CSVClassReader = new FileReader(String.format("%s%s.java", srcDirPath, csvClassName));
-                System.out.println(String.format("CLASS %s EXISTS", csvClassName));
-                return readCSVfromClass(CSVClass);
-            }catch(ClassNotFoundException | FileNotFoundException ex)
-            {
-                System.out.println(String.format("No CSV Class  \"%s\" detected. ", csvClassName));
-                System.out.println(String.format("Generating CSV Class %s....", csvClassName));
-            }
+    /**
+     * Lazily read in data from the CSV at the filepath specified when the AutoReadCSV object was instantiated. Rows are parsed
+     * on demand as the stream is consumed, so the CSV does not need to fit in memory. The file or URL connection is closed when the stream
+     * is closed or fully consumed, so use try-with-resources when the stream may be abandoned early. Parallel streams are supported.
+     * @param <T> Type of Objects in the Stream. On first run, this should be Object. Once the class representing
+     * the CSV has been generated, this can be changed to that type.
+     * @return Stream of Objects storing the CSV data, or an empty Stream if the CSV class could not be generated.
+     */
+    public <T> Stream<T> streamCSV() {
+        refreshURLCache();
+        Class CSVClass = resolveCSVClass();
+        if(CSVClass == null)
+        {
+            return Stream.empty();
+        }
 
-            ArrayList<ColumnCSV> columns = buildColumns();
+        CSVTokenizer tokenizer = openCSVTokenizer();
+        if(tokenizer == null)
+        {
+            return Stream.empty();
+        }
 
+        String[] headerRow = null;
+        try {
+            headerRow = tokenizer.nextRecord();
+        } catch (IOException e) {
+            System.out.println("ERROR: Failed to read CSV header. ");
+        }
+        if(headerRow == null)
+        {
             try {
-                buildPOJO(columns);
+                tokenizer.close();
             } catch (IOException e) {
-                System.out.println(String.format("Attempt to Build Class  \"%s\" Failed. ", csvClassName));
-                return null;
+                e.printStackTrace();
             }
+            return Stream.empty();
+        }
 
-        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        CSVRowMapper<T> mapper = rowMapper(CSVClass, headerRow);
 
-        StandardJavaFileManager fileManager = compiler.getStandardFileManager(
-                null, null, null);
-        try {
-            fileManager.setLocation(StandardLocation.CLASS_OUTPUT, Arrays
-                    .asList(new File(buildDirPath)));
-        } catch (IOException e) {
-            e.printStackTrace();
-            System.out.println(String.format("Build Directory %s not found. Set your build directory with setBuildDirPath()", buildDirPath));
-        }
+        CSVRecordSpliterator records = new CSVRecordSpliterator(tokenizer);
+        return StreamSupport.stream(records, false)
+                .onClose(records::close)
+                .map(mapper::mapRow);
+    }
 
-        boolean success = compiler.getTask(null, fileManager, null, null, null,
-                        fileManager.getJavaFileObjectsFromFiles(Arrays.asList(new File(String.format("%s%s.java", srcDirPath, csvClassName)))))
-                .call();
-        try {
-            fileManager.close();
-        } catch (IOException e) {
-            System.out.println("ERROR: Generated Class Failed to Compile. Verify the sourceDir and buildDir of your project. ");
+    /**
+     * Lazily iterate over the data in the CSV at the filepath specified when the AutoReadCSV object was instantiated.
+     * The file or URL connection is closed once the last row has been returned.
+     * @param <T> Type of Objects returned by the Iterator. On first run, this should be Object.
+     * @return Iterator over Objects storing the CSV data.
+     */
+    public <T> Iterator<T> iterator() {
+        return this.<T>streamCSV().iterator();
+    }
+
+    /**
+     * Follow a CSV that is appended to, such as a log, like tail -f. Only the bytes appended since the last poll are parsed, so each batch of
+     * new rows takes time proportional to its size, not to the size of the file. Rows are handed to onRow on a daemon thread, in file order,
+     * until the follower is closed. Truncated and rotated files are followed from their new header (see CSVFollower).
+     * @param onRow called with every new row.
+     * @param <T> Type of the rows. On first run, this should be Object.
+     * @return the running follower, to close when done, or null if the CSV cannot be followed.
+     */
+    public <T> CSVFollower<T> followCSV(Consumer<? super T> onRow)
+    {
+        CSVFollower<T> follower = openFollower(Objects.requireNonNull(onRow));
+        if(follower != null)
+        {
+            follower.start();
         }
+        return follower;
+    }
 
-        Class c = null;
-        try{
-            c = Class.forName(csvClassName);
-        } catch (ClassNotFoundException e) {
-            e.printStackTrace();
+    /**
+     * Follow a CSV that is appended to, without a thread of its own: new rows are read with poll(), or consumed from stream().
+     * @param <T> Type of the rows. On first run, this should be Object.
+     * @return the follower, to close when done, or null if the CSV cannot be followed.
+     */
+    public <T> CSVFollower<T> followCSV()
+    {
+        return openFollower(null);
+    }
+
+    /**
+     * Index the CSV for random access: the byte offset of every rowIndexInterval-th row is found in one parallel pass over the file and
+     * saved next to the CSV, ex: menu.csv.idx. Later reads, including by later runs, reuse the index for as long as the size, modification
+     * time and checksum of the CSV match it, and build it again otherwise. With an index, parallel parsing splits the file at indexed rows
+     * instead of scanning it for record boundaries. If the index cannot be saved, it is kept for this AutoReadCSV only.
+     * Only uncompressed local files with an ASCII delimeter can be indexed.
+     * @return true if the CSV is indexed.
+     */
+    public boolean buildIndex()
+    {
+        return rowIndex(true) != null;
+    }
+
+    /**
+     * Count the rows of the CSV, not counting the header, from its row index. The CSV is indexed first if it has no current index.
+     * @return number of rows, or -1 if the CSV cannot be indexed.
+     */
+    public long count()
+    {
+        CSVRowIndex index = rowIndex(true);
+        return index == null ? -1 : index.rowCount();
+    }
+
+    /**
+     * Read a range of rows of the CSV, ex: a page of results. Reading starts at the closest indexed row, so the time taken depends on the
+     * size of the range and rowIndexInterval, not on where the range is in the file. The CSV is indexed first if it has no current index.
+     * @param from index of the first row to read, 0 being the first row after the header.
+     * @param to index after the last row to read. Rows past the end of the CSV are left out.
+     * @param <T> Type of the rows. On first run, this should be Object.
+     * @return ArrayList of the rows in [from, to), or null if the CSV cannot be indexed or the range is invalid.
+     */
+    public <T> ArrayList<T> readRows(long from, long to)
+    {
+        if(from < 0 || to < from)
+        {
+            System.out.println(String.format("ERROR: Invalid row range [%d, %d). ", from, to));
+            return null;
+        }
+        CSVRowIndex index = rowIndex(true);
+        if(index == null)
+        {
+            return null;
+        }
+        Class CSVClass = resolveCSVClass();
+        if(CSVClass == null)
+        {
+            return null;
         }
 
-        return readCSVfromClass(c);
+        String[] headerRow = null;
+        try (CSVTokenizer tokenizer = openCSVTokenizer()) {
+            headerRow = tokenizer == null ? null : tokenizer.nextRecord();
+        } catch (IOException e) {
+            System.out.println("ERROR: Failed to read CSV header. ");
         }
-    
-        private <csvClass> ArrayList<csvClass> readCSVfromClass(Class CSVClass)
+        if(headerRow == null)
         {
-            ArrayList<csvClass> results = new ArrayList<>();
+            return null;
+        }
+        CSVRowMapper<T> mapper = rowMapper(CSVClass, headerRow);
 
-            Field[] fields = CSVClass.getDeclaredFields();
+        to = Math.min(to, index.rowCount());
+        ArrayList<T> results = new ArrayList<>((int) Math.max(0, to - from));
+        if(from >= to)
+        {
+            return results;
+        }
 
-            Scanner fileScnr = null;
-            try {
-                fileScnr = new Scanner(new File(csvFilePath));
-            } catch ( NullPointerException ex) {
-                try {
-                    fileScnr = new Scanner(csvFileURL.openConnection().getInputStream());
-                } catch (IOException e) {
-                    System.out.println("ERROR: CSV file not found at the given URL. Check your URL. ");
+        long row = index.indexedRowBefore(from);
+        try (FileChannel channel = FileChannel.open(csvFileObject.toPath(), StandardOpenOption.READ);
+             CSVTokenizer tokenizer = new CSVTokenizer(new InputStreamReader(Channels.newInputStream(channel.position(index.offsetOf(row)))),
+                     delimeter)) {
+            for(; row < to; row++)
+            {
+                String[] record = tokenizer.nextRecord();
+                if(record == null)
+                {
+                    break;
+                }
+                //rows before from are tokenized to find the start of the range, but not converted
+                if(row >= from)
+                {
+                    results.add(mapper.mapRow(record));
                 }
             }
-            catch(FileNotFoundException ex2)
+        } catch (IOException e) {
+            System.out.println("ERROR: Failed to read CSV file. ");
+            return null;
+        }
+        return results;
+    }
+
+    /**
+     * Find the current row index of the CSV: the one in memory, or the one saved next to the CSV, or else a new one if build is true.
+     * @return the row index, or null if there is no current index or the CSV cannot be indexed.
+     */
+    private CSVRowIndex rowIndex(boolean build)
+    {
+        if(!isSplittable())
+        {
+            if(build)
             {
-                System.out.println("ERROR: CSV File Not Found. Check your File Path. ");
+                System.out.println("ERROR: Only uncompressed local CSV files with an ASCII delimeter can be indexed. ");
             }
+            return null;
+        }
+        int interval = Math.max(1, rowIndexInterval);
+        if(rowIndex != null && rowIndex.isCurrent(csvFileObject, interval, delimeter))
+        {
+            return rowIndex;
+        }
+        rowIndex = CSVRowIndex.load(csvFileObject, interval, delimeter);
+        if(rowIndex != null || !build)
+        {
+            return rowIndex;
+        }
 
-            String headerRow = null;
-            if (fileScnr.hasNextLine()) {
-                headerRow = fileScnr.nextLine();
-            } else {
-                System.out.println("ERROR: CSV File Not Found. Check your File Path. ");
-            }
+        try {
+            rowIndex = CSVRowIndex.build(csvFileObject, interval, delimeter);
+        } catch (IOException e) {
+            System.out.println("ERROR: Failed to index CSV file. ");
+            return null;
+        }
+        try {
+            rowIndex.save(csvFileObject);
+        } catch (IOException e) {
+            System.out.println(String.format("ERROR: Failed to save the row index of the CSV. Keeping it in memory. %s", e.getMessage()));
+        }
+        return rowIndex;
+    }
+
+    private <T> CSVFollower<T> openFollower(Consumer<? super T> onRow)
+    {
+        if(csvFilePath == null)
+        {
+            System.out.println("ERROR: Only local CSV files can be followed. ");
+            return null;
+        }
+        if(CompressedInput.isCompressed(csvFileObject))
+        {
+            System.out.println("ERROR: Compressed CSV files cannot be followed. ");
+            return null;
+        }
+        if(!CSVRecordScanner.canScan(delimeter))
+        {
+            System.out.println("ERROR: Only CSV files with an ASCII delimeter can be followed. ");
+            return null;
+        }
+        Class CSVClass = resolveCSVClass();
+        if(CSVClass == null)
+        {
+            return null;
+        }
+        return new CSVFollower<T>(csvFileObject.toPath(), delimeter, headerRow -> rowMapper(CSVClass, headerRow), followFromStart,
+                followPollMillis, onRow);
+    }
 
-            //Scanner for HEADER ROW String (Not file)
-            Scanner headerScnr = new Scanner(headerRow);
-            headerScnr.useDelimiter(delimeter);
+    /**
+     * Read in the CSV as typed columns rather than as objects. Every column is stored in primitive arrays (see CSVColumnVector), which
+     * takes a fraction of the memory of one object per row and can be scanned quickly for aggregations. Empty cells, and cells that do not
+     * match the datatype of their column, are marked missing instead of failing the read.
+     * Datatypes are taken from the @CSVField fields of the CSV class if it exists. Otherwise the CSV is typed as it would be for readCSV(),
+     * but no class is generated.
+     * @return columns of the CSV, or null if the CSV could not be read.
+     */
+    public ColumnarCSV readColumnar()
+    {
+        refreshURLCache();
+        CSVTokenizer tokenizer = openCSVTokenizer();
+        if(tokenizer == null)
+        {
+            return null;
+        }
 
-            //START: code to put the datatypes from @QuickCSVField in the correct order relative to the CSV. (Protect against user modification or reordering)
-            //NOTE: The QuickCSVConstructor is not affected by reordering the fields, so if it is clean the instantiation of objects is not affected once datatypes are ordered.
-            //put all headers from csv into arraylist
-            ArrayList<String> headers = new ArrayList<>();
-            while(headerScnr.hasNext())
+        try (CSVTokenizer rows = tokenizer) {
+            String[] headerRow = rows.nextRecord();
+            if(headerRow == null)
             {
-                headers.add(headerScnr.next());
+                System.out.println("ERROR: CSV Not Found. ");
+                return null;
             }
 
-            //create list of java qualified field names from csv header
-            ArrayList<String> jcHeaders = new ArrayList<>();
-            for(String h: headers)
-            {
-                String hjc = javaQualifiedName(h);
-                boolean headercheck = false;
+            ArrayList<ColumnCSV> columns = typedColumns(headerRow);
 
-                while(headercheck == false)
-                if(jcHeaders.contains(hjc))
-                {
-                    hjc += "I";
-                }
-                else
-                {
-                    jcHeaders.add(hjc);
-                    headercheck = true;
-                }
+            CSVColumnVector[] vectors = new CSVColumnVector[columns.size()];
+            for(int i = 0; i < vectors.length; i++)
+            {
+                vectors[i] = CSVColumnVector.forColumn(columns.get(i));
             }
 
-            //get numver of QuickCSV annotated fields
-            int numCSVFields = 0;
-            for(Field f: fields)
+            String[] row;
+            while((row = rows.nextRecord()) != null)
             {
-                if(f.isAnnotationPresent(CSVField.class))
+                for(int i = 0; i < vectors.length; i++)
                 {
-                    numCSVFields += 1;
+                    vectors[i].append(i < row.length ? row[i] : null);
                 }
             }
 
-            //order classes of data to match csv
-            Class[] csvFields = new Class[numCSVFields];
-            for(Field f: fields)
+            for(CSVColumnVector vector: vectors)
             {
-                int col_index = 0;
-                if(f.isAnnotationPresent(CSVField.class))
-                {
-                    for(String h: jcHeaders)
-                    {
-                        if(h.equals(f.getName()))
-                        {
-                            csvFields[col_index] = f.getType();
-                        }
-                        else
-                        {
-                            col_index += 1;
-                        }
-                    }
-                }
+                vector.trim();
             }
+            return new ColumnarCSV(vectors);
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("ERROR: Failed to read CSV file. ");
+            return null;
+        }
+    }
 
-            //get all constructors of class CSVClass
-            Constructor[] con = CSVClass.getConstructors();
-            Constructor quickCSVConstructor = null;
+    /**
+     * Read in the CSV as rows packed into direct memory outside of the Java heap, for datasets too large to keep as objects. Every row
+     * takes a fixed number of bytes derived from the column datatypes (see OffHeapCSV), so the garbage collector never sees the rows.
+     * Empty cells, and cells that do not match the datatype of their column, are missing instead of failing the read.
+     * Datatypes are taken from the @CSVField fields of the CSV class if it exists. Otherwise the CSV is typed as it would be for readCSV(),
+     * but no class is generated. Generate the class with setOffHeapView(true) to read the rows through its View.
+     * @return rows of the CSV, or null if the CSV could not be read.
+     */
+    public OffHeapCSV readOffHeap()
+    {
+        refreshURLCache();
+        CSVTokenizer tokenizer = openCSVTokenizer();
+        if(tokenizer == null)
+        {
+            return null;
+        }
 
-            //identify the constructor for the CSV data by annotation
-            for(Constructor c: con) {
-                if (c.isAnnotationPresent(CSVConstructor.class)) {
-                    quickCSVConstructor = c;
-                }
+        try (CSVTokenizer rows = tokenizer) {
+            String[] headerRow = rows.nextRecord();
+            if(headerRow == null)
+            {
+                System.out.println("ERROR: CSV Not Found. ");
+                return null;
             }
 
-            while(fileScnr.hasNextLine())
+            OffHeapCSV store = new OffHeapCSV(typedColumns(headerRow));
+            String[] row;
+            while((row = rows.nextRecord()) != null)
             {
-                String[] row = fileScnr.nextLine().split(delimeter + "(?=([^\"]*\"[^\"]*\")*[^\"]*$)", -1); //-1 protects against ,,
-                //store parsed cell values to create csvClass object
-                Object[] parsedRow = new Object[csvFields.length];
-
-                for(int i = 0; i < csvFields.length; i++)
-
-                {
-                    String cleanCell = cleanCell(row[i]);
+                store.append(row);
+            }
+            store.finish();
+            return store;
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("ERROR: Failed to read CSV file. ");
+            return null;
+        }
+    }
 
-                    if(csvFields[i].equals(Double.class))
-                    {
-                        parsedRow[i] = Double.parseDouble(cleanCell);
-                    }
-                    else if(csvFields[i].equals(String.class))
-                    {
-                        parsedRow[i] = cleanCell;
-                    }
-                    else if(csvFields[i].equals(Integer.class))
-                    {
-                        parsedRow[i] = Integer.parseInt(cleanCell);
-                    }
-                    else if(csvFields[i].equals(LocalDateTime.class))
-                    {
-                        try
-                        {
-                            parsedRow[i] = LocalDateTime.parse(cleanCell);
-                        }catch(DateTimeParseException ex)
-                        {
-                            try {
+    /**
+     * Datatypes of the columns for readColumnar() and readOffHeap(), from the CSV class if it exists, otherwise typed from the CSV.
+     */
+    private ArrayList<ColumnCSV> typedColumns(String[] headerRow)
+    {
+        ArrayList<ColumnCSV> columns = columnsFromCSVClass(javaQualifiedHeaders(headerRow));
+        if(columns == null)
+        {
+            System.out.println(String.format("No CSV Class  \"%s\" detected. Typing columns....", csvClassName));
+            columns = buildColumns();
+        }
+        return columns;
+    }
 
-                                parsedRow[i] = LocalDateTime.parse(cleanCell, DateTimeFormatter.ofPattern("M/d/y H:m"));
-                            }catch(DateTimeParseException ex2)
-                            {
-                                try
-                                {
-                                    parsedRow[i] = LocalDateTime.parse(cleanCell,DateTimeFormatter.ofPattern("M/d/y H:m:s"));
-                                }catch(DateTimeParseException ex3)
-                                {
+    /**
+     * Datatypes of the columns from the CSV class, if it has already been generated or compiled.
+     * @param columnNames java qualified names of the header cells.
+     * @return columns typed from the @CSVField of the same name, or null if there is no CSV class or it does not match the header.
+     */
+    private ArrayList<ColumnCSV> columnsFromCSVClass(String[] columnNames)
+    {
+        if(csvClassName == null)
+        {
+            return null;
+        }
+        Class CSVClass = InMemoryCompiler.getCompiledClass(csvClassName);
+        try {
+            if(CSVClass == null)
+            {
+                CSVClass = Class.forName(csvClassName);
+            }
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
 
-                                }
-                            }
-                            }
+        ArrayList<ColumnCSV> columns = new ArrayList<>();
+        for(int i = 0; i < columnNames.length; i++)
+        {
+            Field field;
+            try {
+                field = CSVClass.getDeclaredField(columnNames[i]);
+            } catch (NoSuchFieldException e) {
+                return null;
+            }
+            if(!field.isAnnotationPresent(CSVField.class))
+            {
+                return null;
+            }
+            ColumnCSV column = new ColumnCSV(columnNames[i], i, null);
+            column.setColumnDataType(field.getType().getSimpleName());
+            column.setColumnDateFormat(field.getAnnotation(CSVField.class).format());
+            columns.add(column);
+        }
+        return columns;
+    }
 
-                    }
-                    else if(csvFields[i].equals(Boolean.class))
-                    {
-                        if(cleanCell.equalsIgnoreCase("yes") || cleanCell.equalsIgnoreCase("true") || checkIntTrue(cleanCell)) //checkint true to take care of integer bool
-                        {
-                            parsedRow[i] = true;
-                        }
-                        else
-                        {
-                            parsedRow[i] = false;
-                        }
-                    }
-                    else
-                    {
-                        try
-                        {
-                            parsedRow[i] = LocalDate.parse(cleanCell);
-
-                        }catch(DateTimeParseException exDt) {
-                            try {
-                                parsedRow[i] = LocalDate.parse(cleanCell, DateTimeFormatter.ofPattern("M/d/yyyy"));
-                            } catch (DateTimeParseException exDt2) {
-                                try {
-                                    parsedRow[i] = LocalDate.parse(cleanCell, DateTimeFormatter.ofPattern("M/d/yy"));
-                                } catch (DateTimeParseException exDt3) {
-                                    try {
-                                        parsedRow[i] = LocalDate.parse(cleanCell, DateTimeFormatter.ofPattern("M-d-yyyy"));
-                                    } catch (DateTimeParseException exDt4) {
-                                        try {
-                                            parsedRow[i] = LocalDate.parse(cleanCell, DateTimeFormatter.ofPattern("M-d-yy"));
-                                        } catch (DateTimeParseException exDt5) {
-                                            try {
-                                                parsedRow[i] = LocalDate.parse(cleanCell, DateTimeFormatter.ofPattern("yyyy/M/d"));
-                                            } catch (DateTimeParseException exDt6) {
-                                                //should never be reached due to column building steps
-                                            }
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                    }
+    /**
+     * Find the class representing the CSV, generating and compiling it first if it does not exist yet.
+     * @return Class representing the CSV, or null if it could not be generated.
+     */
+    private Class resolveCSVClass() {
+
+        if(csvClassName == null)
+        {
+            return null;
+        }
+
+        if(inMemoryCompilation)
+        {
+            //a class compiled earlier by this JVM, or packaged with the application
+            Class CSVClass = InMemoryCompiler.getCompiledClass(csvClassName);
+            try {
+                if(CSVClass == null)
+                {
+                    CSVClass = Class.forName(csvClassName);
                 }
+            } catch (ClassNotFoundException e) {
+                CSVClass = null;
+            }
+            if(CSVClass != null)
+            {
+                System.out.println(String.format("CLASS %s EXISTS", csvClassName));
+                return CSVClass;
+            }
+            System.out.println(String.format("No CSV Class  \"%s\" detected. ", csvClassName));
+            System.out.println(String.format("Generating CSV Class %s in memory....", csvClassName));
+            return compileInMemory(buildColumns());
+        }
 
-                try{
-                    results.add((csvClass) quickCSVConstructor.newInstance(parsedRow));
-                } catch (InvocationTargetException e) {
-                    e.printStackTrace();
-                } catch (InstantiationException e) {
-                    e.printStackTrace();
-                } catch (IllegalAccessException e) {
-                    e.printStackTrace();
+        try
+            {
+                //Check to see if class already exists
+                Class CSVClass = Class.forName(csvClassName);
+                //classes generated at build time have no source in the project
+                if(CSVClass.isAnnotationPresent(CSVGenerated.class))
+                {
+                    System.out.println(String.format("CLASS %s EXISTS", csvClassName));
+                    return CSVClass;
                 }
+                //make sure class does not only exist as a lingering build file.
+                FileReader CSVClassReader = new FileReader(String.format("%s%s.java", srcDirPath, csvClassName));
+                CSVClassReader.close();
+                System.out.println(String.format("CLASS %s EXISTS", csvClassName));
+                return CSVClass;
+            }catch(ClassNotFoundException | IOException ex)
+            {
+                System.out.println(String.format("No CSV Class  \"%s\" detected. ", csvClassName));
+                System.out.println(String.format("Generating CSV Class %s....", csvClassName));
             }
 
-            //return arrayList of csvClass objects
-            return results;
+            ArrayList<ColumnCSV> columns = buildColumns();
+
+            try (Writer buildCSVClass = new FileWriter(String.format("%s%s.java", srcDirPath, csvClassName))) {
+                buildPOJO(columns, buildCSVClass, false);
+            } catch (IOException e) {
+                System.out.println(String.format("Attempt to Build CSV Class %s failed. Check the path specified for your src directory. Default is src/main/java", csvClassName));
+                return null;
+            }
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(
+                null, null, null);
+        try {
+            fileManager.setLocation(StandardLocation.CLASS_OUTPUT, Arrays
+                    .asList(new File(buildDirPath)));
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.out.println(String.format("Build Directory %s not found. Set your build directory with setBuildDirPath()", buildDirPath));
+        }
+
+        boolean success = compiler.getTask(null, fileManager, null, null, null,
+                        fileManager.getJavaFileObjectsFromFiles(Arrays.asList(new File(String.format("%s%s.java", srcDirPath, csvClassName)))))
+                .call();
+        try {
+            fileManager.close();
+        } catch (IOException e) {
+            System.out.println("ERROR: Generated Class Failed to Compile. Verify the sourceDir and buildDir of your project. ");
+        }
+
+        Class c = null;
+        try{
+            c = Class.forName(csvClassName);
+        } catch (ClassNotFoundException e) {
+            e.printStackTrace();
+        }
+
+        return c;
         }
 
     /**
-     * Build ColumnCSV objects and determines their datatype quickly by calling intuitDatatype with a parallel stream.
-     * This facilitates the creation of a POJO structure mapped to the CSV.
-      * @return Every single column from the CSV file and relevant information from it including datatypes, cells as a string, header names, etc.
+     * Generate the source of the CSV class without compiling or loading it, ex: at build time. The class is marked with @CSVGenerated.
+     * @param outputDirPath directory the source is written to, ex: "build/generated/sources/automaticCSV/java/main/".
+     * @throws IOException if the source cannot be written.
      */
-    private ArrayList<ColumnCSV> buildColumns()
+    void generateCSVClass(String outputDirPath) throws IOException
     {
-        Scanner fileScnr = null;
+        System.out.println(String.format("Generating CSV Class %s....", csvClassName));
+        refreshURLCache();
+        ArrayList<ColumnCSV> columns = buildColumns();
+        try (Writer buildCSVClass = new FileWriter(new File(outputDirPath, String.format("%s.java", csvClassName)))) {
+            buildPOJO(columns, buildCSVClass, true);
+        }
+    }
+
+    /**
+     * Generate the CSV class and compile it in memory, optionally writing the source to srcDirPath.
+     * @return the loaded class, or null if it could not be compiled.
+     */
+    private Class compileInMemory(ArrayList<ColumnCSV> columns)
+    {
+        StringWriter source = new StringWriter();
         try {
-            fileScnr = new Scanner(new File(csvFilePath));
-        } catch ( NullPointerException ex) {
-            try {
-                fileScnr = new Scanner(new BufferedReader(new InputStreamReader(csvFileURL.openStream())));
+            buildPOJO(columns, source, false);
+        } catch (IOException e) {
+            System.out.println(String.format("Attempt to Build Class  \"%s\" Failed. ", csvClassName));
+            return null;
+        }
+
+        if(writeGeneratedSource)
+        {
+            try (Writer sourceFile = new FileWriter(String.format("%s%s.java", srcDirPath, csvClassName))) {
+                sourceFile.write(source.toString());
             } catch (IOException e) {
-                System.out.println("ERROR: CSV file not found at the given URL. Check your URL. ");
+                System.out.println(String.format("Attempt to write CSV Class %s failed. Check the path specified for your src directory. Default is src/main/java", csvClassName));
             }
         }
-        catch(FileNotFoundException ex2)
+
+        return InMemoryCompiler.compile(csvClassName, source.toString());
+    }
+
+        private <csvClass> ArrayList<csvClass> readCSVfromClass(Class CSVClass)
         {
-            System.out.println("ERROR: CSV File Not Found. Check your File Path. ");
-        }
+            ArrayList<csvClass> results = new ArrayList<>();
 
-        String headerRow = null;
-        if (fileScnr.hasNextLine()) {
-            headerRow = fileScnr.nextLine();
-            System.out.println(headerRow);
-        } else {
-            System.out.println("ERROR: CSV Not Found. ");
-        }
+            CSVTokenizer tokenizer = openCSVTokenizer();
+            if(tokenizer == null)
+            {
+                return results;
+            }
+
+            String[] headerRow = null;
+            try {
+                headerRow = tokenizer.nextRecord();
+            } catch (IOException e) {
+                System.out.println("ERROR: Failed to read CSV header. ");
+            }
+            if (headerRow == null) {
+                System.out.println("ERROR: CSV File Not Found. Check your File Path. ");
+                headerRow = new String[0];
+            }
+
+            CSVRowMapper<csvClass> mapper = rowMapper(CSVClass, headerRow);
 
-        //store String[] representation of rows in file
-        ArrayList<String[]> rawRowArrays = new ArrayList<>();
+            //local files can be split into byte ranges and parsed on the fork-join pool
+            if(parallelParsing && isSplittable())
+            {
+                try {
+                    tokenizer.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                return readCSVfromClassParallel(mapper);
+            }
 
-        int heuristicCount = 0;
-        //get String[] representation of ALL rows in file
-        while (fileScnr.hasNextLine()) {
-            if(heuristicTyping)
+            while(true)
             {
-                if(heuristicCount > 100)
+                String[] row;
+                try {
+                    row = tokenizer.nextRecord();
+                } catch (IOException e) {
+                    System.out.println("ERROR: Failed to read CSV file. ");
+                    break;
+                }
+                if(row == null)
                 {
                     break;
                 }
+                results.add(mapper.mapRow(row));
             }
 
-            rawRowArrays.add(fileScnr.nextLine().split(delimeter + "(?=([^\"]*\"[^\"]*\")*[^\"]*$)", -1));
-            heuristicCount++;
-        }
+            try {
+                tokenizer.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
 
-        //Scanner for HEADERROW String (Not file)
-        Scanner headerScnr = new Scanner(headerRow);
-        headerScnr.useDelimiter(delimeter);
+            //return arrayList of csvClass objects
+            return results;
+        }
 
-        //Store ColumnCSV objects
-        ArrayList<ColumnCSV> columns = new ArrayList<>();
+    /**
+     * Create the row mapper used to convert records of this CSV into objects of the CSV class. The mapper generated by buildPOJO is used
+     * when the header row still matches the columns it was generated for. Otherwise, a MethodHandle based binder matches every column to
+     * the @CSVField of the same name. This protects against user modification or reordering of the fields of the CSV class.
+     * NOTE: The @CSVConstructor is not affected by reordering the fields, so if it is clean the instantiation of objects is not affected.
+     * @param CSVClass Class representing the CSV.
+     * @param headerRow header cells of the CSV.
+     * @return row mapper for the CSV class.
+     */
+    private <csvClass> CSVRowMapper<csvClass> rowMapper(Class CSVClass, String[] headerRow)
+    {
+        String[] columnNames = javaQualifiedHeaders(headerRow);
 
-        //int representation of column in CSV
-        int colIndex = 0;
+        //prefer the mapper generated alongside the class
+        for(Class nested: CSVClass.getDeclaredClasses())
+        {
+            if(CSVRowMapper.class.isAssignableFrom(nested))
+            {
+                try {
+                    CSVRowMapper<csvClass> generated = (CSVRowMapper<csvClass>) nested.getConstructor().newInstance();
+                    if(Arrays.equals(generated.getColumnNames(), columnNames))
+                    {
+                        return generated;
+                    }
+                } catch (ReflectiveOperationException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
 
-        //Instantiate all ColumnCSV objects and store in Columns
-        while (headerScnr.hasNext()) {
-            String colName = javaQualifiedName(headerScnr.next());
+        return MethodHandleRowBinder.forClass(CSVClass).bind(columnNames);
+    }
 
-            ArrayList<String> currentColumnValues = new ArrayList<>();
+    /**
+     * @return java qualified field names of the csv header, made unique by appending "I".
+     */
+    private String[] javaQualifiedHeaders(String[] headerRow)
+    {
+        //create list of java qualified field names from csv header
+        ArrayList<String> jcHeaders = new ArrayList<>();
+        for(String h: headerRow)
+        {
+            String hjc = javaQualifiedName(h);
+            boolean headercheck = false;
 
-            for (int i = 0; i < rawRowArrays.size(); i++) {
-                currentColumnValues.add(rawRowArrays.get(i)[colIndex]);
+            while(headercheck == false)
+            if(jcHeaders.contains(hjc))
+            {
+                hjc += "I";
             }
-            currentColumnValues = cleanCells(currentColumnValues);
-
-            for(ColumnCSV col: columns)
+            else
             {
-                if(col.getColumnName().equals(colName))
-                {
-                    colName = colName + "I";
+                jcHeaders.add(hjc);
+                headercheck = true;
+            }
+        }
+        return jcHeaders.toArray(new String[0]);
+    }
 
+    /**
+     * Parse a local CSV file on the fork-join pool. The file is memory-mapped and split into byte ranges on record boundaries
+     * by CSVFileChunker, every range is tokenized and converted to objects independently, and the per range results are
+     * concatenated in file order.
+     * @param mapper row mapper of the CSV class, bound to the header row of the CSV.
+     * @return ArrayList of csvClass objects in file order.
+     */
+    private <csvClass> ArrayList<csvClass> readCSVfromClassParallel(CSVRowMapper<csvClass> mapper)
+    {
+        ArrayList<csvClass> results = new ArrayList<>();
+
+        try (FileChannel channel = FileChannel.open(Paths.get(csvFilePath), StandardOpenOption.READ)) {
+            //exact record boundaries from the row index, if the CSV has one
+            CSVRowIndex index = rowIndex(false);
+            long[] ranges = index != null ? CSVFileChunker.split(index.offsets(), channel.size())
+                    : CSVFileChunker.split(channel, new CSVRecordScanner(delimeter));
+
+            List<ArrayList<csvClass>> chunkResults = IntStream.range(0, ranges.length - 1).parallel().mapToObj(i -> {
+                ArrayList<csvClass> chunk = new ArrayList<>();
+                try (CSVTokenizer tokenizer = new CSVTokenizer(new InputStreamReader(new CSVFileChunker.ByteBufferInputStream(
+                        CSVFileChunker.map(channel, ranges[i], ranges[i + 1]))), delimeter)) {
+                    String[] row;
+                    while((row = tokenizer.nextRecord()) != null)
+                    {
+                        chunk.add(mapper.mapRow(row));
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 }
-            }
-            columns.add(new ColumnCSV(colName, colIndex, currentColumnValues));
+                return chunk;
+            }).collect(Collectors.toList());
 
-            colIndex++;
+            int total = 0;
+            for(ArrayList<csvClass> chunk: chunkResults)
+            {
+                total += chunk.size();
+            }
+            results.ensureCapacity(total);
+            for(ArrayList<csvClass> chunk: chunkResults)
+            {
+                results.addAll(chunk);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("ERROR: Failed to read CSV file. ");
         }
 
-        //parallelize datatype intuition
-        columns.parallelStream().forEach(columnCSV -> {columnCSV.setColumnDataType(intuitDatatype((ArrayList<String>) columnCSV.getColumnStringArray()));});
-
-        return columns;
+        return results;
     }
 
     /**
-     * Logic to determine the best datatype of the String representation of cells form a single column. This method should be called using a
-     * parallelStream. Strives to be quick while also guaranteeing that the highest resolution supported datatype is chosen.
-     * @param columnData
-     * @return Class of the highest resolution supported datatype for a column.
+     * Build ColumnCSV objects and determine their datatype in a single pass over the CSV. Every column keeps a small ColumnTypeInference
+     * that is updated as rows stream past, so memory use does not depend on the size of the file. Reading stops early once every column
+     * has collapsed to String. With heuristicTyping, only the rows chosen by the samplingStrategy are typed, and the sampled datatypes can
+     * be checked against the full csv in the background. This facilitates the creation of a POJO structure mapped to the CSV.
+      * @return Every single column from the CSV file and relevant information from it including datatypes, header names, etc.
      */
-    private Object intuitDatatype(ArrayList<String> columnData)
+    private ArrayList<ColumnCSV> buildColumns()
     {
-        Class cellBestClass = String.class;
-        ArrayList<Class> potentialColumnClass = new ArrayList<>();
+        //Store ColumnCSV objects
+        ArrayList<ColumnCSV> columns = new ArrayList<>();
 
-        Class lastSeenCellBestClass = Object.class; //prevent null issue
-        String dtStringFormat = "";
-        int row = 0;
-        for(String cell: columnData)
+        CSVTokenizer tokenizer = openCSVTokenizer();
+        if(tokenizer == null)
         {
-            //cellBestClass = String.class;
-            if(lastSeenCellBestClass.equals(String.class))
-            {
-                break; //if there is ever a string type cell, have to read it in as string
+            return columns;
+        }
+
+        try {
+            String[] headerRow = tokenizer.nextRecord();
+            if (headerRow != null) {
+                System.out.println(String.join(delimeter, headerRow));
+            } else {
+                System.out.println("ERROR: CSV Not Found. ");
+                headerRow = new String[0];
             }
-            else if(lastSeenCellBestClass.equals(Boolean.class))
-            {
 
-                    if(cell.equalsIgnoreCase("Yes") || cell.equalsIgnoreCase("No"))
-                    {
-                        continue;
-                    }
-                    else if(cell.equalsIgnoreCase("True")  || cell.equalsIgnoreCase("False"))
-                    {
-                        continue;
-                    }
-                    else
+            //int representation of column in CSV
+            int colIndex = 0;
+
+            //Instantiate all ColumnCSV objects and store in Columns
+            for (String header : headerRow) {
+                String colName = javaQualifiedName(header);
+
+                for(ColumnCSV col: columns)
+                {
+                    if(col.getColumnName().equals(colName))
                     {
-                        try
-                        {
-                            int val = Integer.parseInt(cell);
-                            if(val == 1 || val == 0)
-                            {
-                                continue;
-                            }
-                        }catch(NumberFormatException ex)
-                        {
+                        colName = colName + "I";
 
-                        }
                     }
+                }
+                columns.add(new ColumnCSV(colName, colIndex, new ColumnTypeInference()));
 
+                colIndex++;
             }
-            else if(lastSeenCellBestClass.equals(Integer.class))
+
+            ColumnTypeInference[] inferences = new ColumnTypeInference[columns.size()];
+            for(int i = 0; i < inferences.length; i++)
             {
-                try
-                {
-                    Integer.parseInt(cell);
-                    cellBestClass = Integer.class;
-                    continue; //next iteration
-                }catch(NumberFormatException ex)
-                {
+                inferences[i] = columns.get(i).getTypeInference();
+            }
 
-                }
+            if(!heuristicTyping && parallelParsing && isSplittable())
+            {
+                tokenizer.close();
+                typeRangesParallel(inferences);
             }
-            else if(lastSeenCellBestClass.equals(Double.class))
+            else if(!heuristicTyping)
             {
-                boolean yesDouble = false;
-                try
-                {
-                    Double.parseDouble(cell);
-                    yesDouble = true;
-                }catch(NumberFormatException ex)
-                {
-
-                }
-
-                try
-                {
-                    Integer.parseInt(cell);
-                }catch(NumberFormatException ex)
-                {
-                    if(yesDouble)
+                //type ALL rows in file
+                String[] row;
+                while ((row = tokenizer.nextRecord()) != null) {
+                    //no further row can change a String column
+                    if(typeRow(inferences, row))
                     {
-                        continue;
+                        break;
                     }
                 }
             }
-            else if(lastSeenCellBestClass.equals(LocalDate.class))
+            else if(samplingStrategy == SamplingStrategy.RESERVOIR || samplingStrategy == SamplingStrategy.STRATIFIED)
             {
-                try
-                {
-                    LocalDate.parse(cell, DateTimeFormatter.ofPattern(dtStringFormat));
-                    continue;
-                }catch(DateTimeParseException ex)
+                List<String[]> sample = samplingStrategy == SamplingStrategy.STRATIFIED && isSplittable()
+                        ? stratifiedSample(inferences.length) : reservoirSample(tokenizer);
+                for(String[] row: sample)
                 {
-
+                    if(typeRow(inferences, row))
+                    {
+                        break;
+                    }
                 }
             }
-            else if(lastSeenCellBestClass.equals(LocalDateTime.class))
+            else
             {
-                try
-                {
-                    LocalDateTime.parse(cell);
-                    continue;
-                }catch(DateTimeParseException ex)
-                {
-                    try
-                    {
-                        LocalDateTime.parse(cell,DateTimeFormatter.ofPattern("M/d/y H:m"));
-                        continue;
-                    }catch(DateTimeParseException ex2)
+                int heuristicCount = 0;
+                String[] row;
+                while (heuristicCount <= sampleSize && (row = tokenizer.nextRecord()) != null) {
+                    if(typeRow(inferences, row))
                     {
-                        try
-                        {
-                            LocalDateTime.parse(cell,DateTimeFormatter.ofPattern("M/d/y H:m:s"));
-                        }catch(DateTimeParseException ex3)
-                        {
-
-                        }
+                        break;
                     }
+                    heuristicCount++;
                 }
             }
+            tokenizer.close();
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("ERROR: Failed to read CSV file. ");
+        }
 
-            try
-            {
-                Double.parseDouble(cell);
-                cellBestClass = Double.class;
-            }catch(NumberFormatException ex)
+        for(ColumnCSV col: columns)
+        {
+            col.setColumnDataType(col.getTypeInference().getColumnDataType());
+            col.setColumnDateFormat(col.getTypeInference().getDateFormat());
+        }
+
+        if(heuristicTyping && verifySampledTypes)
+        {
+            String[] columnNames = new String[columns.size()];
+            Object[] sampledTypes = new Object[columns.size()];
+            for(int i = 0; i < columnNames.length; i++)
             {
-                if(cell.equalsIgnoreCase("Yes") || cell.equalsIgnoreCase("No"))
-                {
-                    cellBestClass = Boolean.class;
-                }
-                else if(cell.equalsIgnoreCase("True")  || cell.equalsIgnoreCase("False"))
+                columnNames[i] = columns.get(i).getColumnName();
+                sampledTypes[i] = columns.get(i).getTypeInference().getColumnDataType();
+            }
+            sampledTypeVerification = CompletableFuture.supplyAsync(() -> verifySampledTypes(columnNames, sampledTypes));
+        }
+
+        return columns;
+    }
+
+    /**
+     * Type every row of a local csv in parallel. The file is split into record-aligned byte ranges as for parallel parsing, each range
+     * is typed into a ColumnTypeSummary per column, and the summaries are combined in file order by a parallel reduction.
+     * @param inferences inference of every column, updated with the result.
+     */
+    private void typeRangesParallel(ColumnTypeInference[] inferences) throws IOException
+    {
+        int columnCount = inferences.length;
+
+        try (FileChannel channel = FileChannel.open(Paths.get(csvFilePath), StandardOpenOption.READ)) {
+            long[] ranges = CSVFileChunker.split(channel, new CSVRecordScanner(delimeter));
+
+            Optional<ColumnTypeSummary[]> summaries = IntStream.range(0, ranges.length - 1).parallel().mapToObj(i -> {
+                ColumnTypeSummary[] rangeSummaries = new ColumnTypeSummary[columnCount];
+                for(int c = 0; c < columnCount; c++)
                 {
-                    cellBestClass = Boolean.class;
+                    rangeSummaries[c] = new ColumnTypeSummary();
                 }
-                else
-                {
-                    try
+                try (CSVTokenizer tokenizer = new CSVTokenizer(new InputStreamReader(new CSVFileChunker.ByteBufferInputStream(
+                        CSVFileChunker.map(channel, ranges[i], ranges[i + 1]))), delimeter)) {
+                    String[] row;
+                    while((row = tokenizer.nextRecord()) != null)
                     {
-                        LocalDateTime.parse(cell);
-                        cellBestClass = LocalDateTime.class;
-                    }catch(DateTimeParseException exDt) {
-                        try {
-                            LocalDateTime.parse(cell,DateTimeFormatter.ofPattern("M/d/y H:m"));
-                            cellBestClass = LocalDateTime.class;
-                            dtStringFormat = "M/d/y H:m";
-                        } catch (DateTimeParseException ex3) {
-                            try
+                        for(int c = 0; c < columnCount && c < row.length; c++)
+                        {
+                            if(!rangeSummaries[c].isString())
                             {
-                                LocalDateTime.parse(cell,DateTimeFormatter.ofPattern("M/d/y H:m:s"));
-                                cellBestClass = LocalDateTime.class;
-                                dtStringFormat = "M/d/y H:m:s";
-                            }catch(DateTimeParseException ex4) {
-                                try {
-                                    LocalDate.parse(cell);
-                                    cellBestClass = LocalDate.class;
-                                    dtStringFormat = "yyyy-M-d";
-                                } catch (DateTimeParseException exD) {
-                                    try {
-                                        LocalDate.parse(cell, DateTimeFormatter.ofPattern("M/d/yyyy"));
-                                        cellBestClass = LocalDate.class;
-                                        dtStringFormat = "M/d/yyyy";
-                                    } catch (DateTimeParseException exD2) {
-                                        try {
-                                            LocalDate.parse(cell, DateTimeFormatter.ofPattern("M/d/yy"));
-                                            cellBestClass = LocalDate.class;
-                                            dtStringFormat = "M/d/yy";
-                                        } catch (DateTimeParseException exD3) {
-                                            try {
-                                                LocalDate.parse(cell, DateTimeFormatter.ofPattern("M-d-yyyy"));
-                                                cellBestClass = LocalDate.class;
-                                                dtStringFormat = "M-d-yyyy";
-                                            } catch (DateTimeParseException exD4) {
-                                                try {
-                                                    LocalDate.parse(cell, DateTimeFormatter.ofPattern("M-dd-yy"));
-                                                    cellBestClass = LocalDate.class;
-                                                    dtStringFormat = "M-dd-yy";
-                                                } catch (DateTimeException exD5) {
-                                                    try {
-                                                        LocalDate.parse(cell, DateTimeFormatter.ofPattern("yyyy/M/d"));
-                                                        cellBestClass = LocalDate.class;
-                                                        dtStringFormat = "yyyy/M/d";
-                                                    } catch (DateTimeException exD6) {
-                                                        cellBestClass = String.class;
-                                                    }
-                                                }
-                                            }
-                                        }
-                                    }
-
-                                }
+                                rangeSummaries[c].update(row[c]);
                             }
                         }
+                        //as in typeRow(), columns missing from a short row are still typed by later rows
+                        boolean allString = true;
+                        for(ColumnTypeSummary summary: rangeSummaries)
+                        {
+                            allString &= summary.isString();
+                        }
+                        if(allString)
+                        {
+                            break;
+                        }
                     }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 }
-            }
-
-            if(cellBestClass.equals(Double.class))
-            {
-                try
-                {
-                    Integer.parseInt(cell);
-                    cellBestClass = Integer.class;
-                }catch (NumberFormatException exInt)
+                return rangeSummaries;
+            }).reduce((first, next) -> {
+                ColumnTypeSummary[] combined = new ColumnTypeSummary[columnCount];
+                for(int c = 0; c < columnCount; c++)
                 {
-
+                    combined[c] = first[c].then(next[c]);
                 }
-            }
+                return combined;
+            });
 
-            if(cellBestClass.equals(Integer.class))
+            if(summaries.isPresent())
             {
-                if(Integer.parseInt(cell) == 0 || Integer.parseInt(cell)  == 1)
+                for(int c = 0; c < columnCount; c++)
                 {
-                    cellBestClass = Boolean.class;
+                    summaries.get()[c].applyTo(inferences[c]);
                 }
             }
+        }
+    }
 
-            lastSeenCellBestClass = cellBestClass;
-            potentialColumnClass.add(cellBestClass);
+    /**
+     * Update the datatype of every column with a row of the csv.
+     * @return true if every column is now a String, so no further row can change the datatypes.
+     */
+    private static boolean typeRow(ColumnTypeInference[] inferences, String[] row)
+    {
+        for (int i = 0; i < inferences.length && i < row.length; i++) {
+            if(!inferences[i].isString())
+            {
+                inferences[i].update(row[i]);
+            }
+        }
+        //columns missing from a short row are still typed by later rows
+        boolean allString = true;
+        for (ColumnTypeInference inference: inferences) {
+            allString &= inference.isString();
+        }
+        return allString;
+    }
 
+    /**
+     * Uniform random sample of sampleSize rows from the rest of the csv (Algorithm R). Sampled rows are returned in file order.
+     * @param tokenizer tokenizer positioned after the header row.
+     */
+    private List<String[]> reservoirSample(CSVTokenizer tokenizer) throws IOException
+    {
+        int size = Math.max(0, sampleSize);
+        String[][] sample = new String[size][];
+        long[] sampleRowNumbers = new long[size];
+
+        //fixed seed so the same csv always generates the same class
+        Random random = new Random(0);
+        long rowNumber = 0;
+        String[] row;
+        while ((row = tokenizer.nextRecord()) != null) {
+            long slot = rowNumber < size ? rowNumber : Math.floorMod(random.nextLong(), rowNumber + 1);
+            if(slot < size)
+            {
+                sample[(int) slot] = row;
+                sampleRowNumbers[(int) slot] = rowNumber;
+            }
+            rowNumber++;
         }
 
-        if(potentialColumnClass.contains(String.class))
-        {
-            return String.class;
+        int sampled = (int) Math.min(size, rowNumber);
+        return IntStream.range(0, sampled).boxed()
+                .sorted(Comparator.comparingLong(i -> sampleRowNumbers[i]))
+                .map(i -> sample[i])
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Sample of about sampleSize rows of a local csv, read in runs of ROWS_PER_STRATUM rows from evenly spaced byte offsets.
+     * Whether an arbitrary offset is in quotes is unknown, so each run starts at the first line break after the offset, and rows that do not
+     * have one cell per column (ex: the tail of a quoted line break) are skipped.
+     * @param columnCount number of columns in the header row.
+     */
+    private List<String[]> stratifiedSample(int columnCount) throws IOException
+    {
+        ArrayList<String[]> sample = new ArrayList<>();
+        int strata = Math.max(1, (sampleSize + ROWS_PER_STRATUM - 1) / ROWS_PER_STRATUM);
+
+        try (FileChannel channel = FileChannel.open(Paths.get(csvFilePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            CSVRecordScanner scanner = new CSVRecordScanner(delimeter);
+            long dataStart = CSVFileChunker.recordEnd(channel, 0, CSVRecordScanner.LINE_START, size, scanner);
+
+            for(int stratum = 0; stratum < strata && sample.size() < sampleSize; stratum++)
+            {
+                long offset = dataStart + (size - dataStart) * stratum / strata;
+                long recordStart = stratum == 0 ? dataStart : CSVFileChunker.recordEnd(channel, offset, CSVRecordScanner.UNQUOTED, size, scanner);
+
+                FileInputStream stratumStream = new FileInputStream(csvFilePath);
+                try (CSVTokenizer tokenizer = new CSVTokenizer(new InputStreamReader(stratumStream), delimeter)) {
+                    stratumStream.getChannel().position(recordStart);
+                    int stratumRows = 0;
+                    String[] row;
+                    while (stratumRows < ROWS_PER_STRATUM && sample.size() < sampleSize && (row = tokenizer.nextRecord()) != null) {
+                        if(row.length == columnCount)
+                        {
+                            sample.add(row);
+                        }
+                        stratumRows++;
+                    }
+                }
+            }
         }
-        else if(potentialColumnClass.contains(LocalDateTime.class) && !(potentialColumnClass.contains(LocalDate.class)) && !(potentialColumnClass.contains(Integer.class)) && !(potentialColumnClass.contains(Double.class) && !(potentialColumnClass.contains(Boolean.class))))
+        return sample;
+    }
+
+    /**
+     * Type every row of the csv and compare the result to the datatypes determined from a sample. Mistyped columns are reported on the console.
+     * @return names of the columns whose sampled datatype did not match.
+     */
+    private List<String> verifySampledTypes(String[] columnNames, Object[] sampledTypes)
+    {
+        ArrayList<String> mistyped = new ArrayList<>();
+
+        ColumnTypeInference[] inferences = new ColumnTypeInference[columnNames.length];
+        for(int i = 0; i < inferences.length; i++)
         {
-            return LocalDateTime.class;
+            inferences[i] = new ColumnTypeInference();
         }
-        else if(!(potentialColumnClass.contains(LocalDateTime.class)) && (potentialColumnClass.contains(LocalDate.class)) && !(potentialColumnClass.contains(Integer.class)) && !(potentialColumnClass.contains(Double.class) && !(potentialColumnClass.contains(Boolean.class))))
+
+        CSVTokenizer tokenizer = openCSVTokenizer();
+        if(tokenizer == null)
         {
-            return LocalDate.class;
+            return mistyped;
         }
-        else if((!(potentialColumnClass.contains(LocalDateTime.class)) &&  !potentialColumnClass.contains(LocalDate.class) && !(potentialColumnClass.contains(Integer.class)) && !(potentialColumnClass.contains(Double.class)) && (potentialColumnClass.contains(Boolean.class))))
-        {
-            return Boolean.class;
+        try (CSVTokenizer rows = tokenizer) {
+            rows.nextRecord(); //header
+            String[] row;
+            while ((row = rows.nextRecord()) != null) {
+                if(typeRow(inferences, row))
+                {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("ERROR: Failed to verify sampled datatypes. ");
+            return mistyped;
         }
-        else if(!(potentialColumnClass.contains(LocalDateTime.class)) && !potentialColumnClass.contains(Boolean.class) && !(potentialColumnClass.contains(LocalDate.class)) && ((potentialColumnClass.contains(Integer.class) || potentialColumnClass.contains(Double.class))))
+
+        for(int i = 0; i < columnNames.length; i++)
         {
-            if(potentialColumnClass.contains(Double.class))
-            {
-                return Double.class;
-            }
-            else
+            Object fullType = inferences[i].getColumnDataType();
+            if(!fullType.equals(sampledTypes[i]))
             {
-                return Integer.class;
+                mistyped.add(columnNames[i]);
+                System.out.println(String.format("WARNING: Column %s of %s was typed as %s from a sample, but the full csv requires %s. ",
+                        columnNames[i], csvClassName, ((Class) sampledTypes[i]).getSimpleName(), ((Class) fullType).getSimpleName()));
             }
         }
-        else
-        {
-            return String.class; //safety
-        }
-
+        return mistyped;
     }
 
     /**
      * Build POJO class file mapped to the CSV file. This method does not dynamically compile the class, that occurs in the
      * readCSV() method after the class has been created.
      * @param columns All of the ColumnCSV objects, with the datatype instantiated, from the relevant CSV file.
+     * @param buildCSVClass Writer the class source is written to, ex: a FileWriter in srcDirPath. Closed when the class is complete.
+     * @param buildTime true to mark the class as generated at build time with @CSVGenerated.
      * @throws IOException
      */
-    private void buildPOJO(ArrayList<ColumnCSV> columns) throws IOException {
+    private void buildPOJO(ArrayList<ColumnCSV> columns, Writer buildCSVClass, boolean buildTime) throws IOException {
         //ensure no duplicate named columns
         ArrayList<String> colNames = new ArrayList<>();
         for(ColumnCSV col: columns)
@@ -764,18 +1344,6 @@ public class AutoReadCSV implements ReadCSV {
             colNames.add(col.getColumnName());
         }
 
-        //Create file for POJO Structure
-        File csvPojo = new File(String.format("%s%s.java", srcDirPath, csvClassName));
-
-        //Create FileWriter
-        Writer buildCSVClass = null;
-        try {
-            buildCSVClass = new FileWriter(csvPojo);
-        } catch (IOException e) {
-            //e.printStackTrace();
-            System.out.println(String.format("Attempt to Build CSV Class %s failed. Check the path specified for your src directory. Default is src/main/java", csvClassName));
-        }
-
         Boolean localDateTimeImport = false;
         for(ColumnCSV col: columns)
         {
@@ -814,6 +1382,10 @@ public class AutoReadCSV implements ReadCSV {
 
         //Write Class Signature to File
         try {
+            if(buildTime)
+            {
+                buildCSVClass.write("@CSVGenerated\n");
+            }
             buildCSVClass.write(String.format("public class %s {\n", csvClassName));
         } catch (IOException e) {
             e.printStackTrace();
@@ -822,14 +1394,30 @@ public class AutoReadCSV implements ReadCSV {
         //Write Fields to File
         for (ColumnCSV col : columns) {
             try {
-                buildCSVClass.write("@CSVField\n");
-                buildCSVClass.write("private " + col.getColumnDataType()
+                if(col.getColumnDataType().equals("LocalDate") || col.getColumnDataType().equals("LocalDateTime"))
+                {
+                    buildCSVClass.write(String.format(primitiveFields ? "@CSVField(format = \"%s\", nullable = true)\n" : "@CSVField(format = \"%s\")\n", col.getColumnDateFormat()));
+                }
+                else
+                {
+                    buildCSVClass.write(primitiveFields ? "@CSVField(nullable = true)\n" : "@CSVField\n");
+                }
+                buildCSVClass.write("private " + fieldType(col)
                         + String.format(" %s;\n\n", col.getColumnName()));
             } catch (IOException e) {
                 e.printStackTrace();
             }
         }
 
+        //missing values, one bit per column. Column names never contain digits, so these cannot clash with a field
+        if(primitiveFields)
+        {
+            for(int word = 0; word < (columns.size() + 63) / 64; word++)
+            {
+                buildCSVClass.write(String.format("private long missing%d;\n\n", word));
+            }
+        }
+
         //Write default constructor to file
         buildCSVClass.write(String.format("public %s() {\n\n}\n\n", csvClassName));
 
@@ -853,15 +1441,44 @@ public class AutoReadCSV implements ReadCSV {
         buildCSVClass.write(constructorParameterization);
 
         //Write paramaterized constructor assignments to file
+        int assignIndex = 0;
         for (ColumnCSV col : columns) {
-            buildCSVClass.write(String.format("this.%s= %s;\n", col.getColumnName(), col.getColumnName()));
+            if(primitiveFields)
+            {
+                //cells are boxed, null if missing
+                buildCSVClass.write(String.format("if(%s != null)\n{\nthis.%s = %s;\n}\nelse\n{\n%s |= %s;\n}\n", col.getColumnName(), col.getColumnName(), col.getColumnName(),
+                        missingWord(assignIndex), missingBit(assignIndex)));
+            }
+            else
+            {
+                buildCSVClass.write(String.format("this.%s= %s;\n", col.getColumnName(), col.getColumnName()));
+            }
+            assignIndex++;
         }
         buildCSVClass.write("}\n\n");
 
         //write getters and setters to file
+        int accessorIndex = 0;
         for (ColumnCSV col : columns) {
-            buildCSVClass.write(String.format("public %s get%s() {\n return %s;\n}\n\n", col.getColumnDataType(), col.getColumnName(), col.getColumnName()));
-            buildCSVClass.write(String.format("public void set%s(%s %s) {\nthis.%s = %s;\n}\n\n", col.getColumnName(), col.getColumnDataType(), col.getColumnName(), col.getColumnName(), col.getColumnName()));
+            if(primitiveFields)
+            {
+                String word = missingWord(accessorIndex);
+                String bit = missingBit(accessorIndex);
+                buildCSVClass.write(String.format("public %s get%s() {\n return %s;\n}\n\n", fieldType(col), col.getColumnName(), col.getColumnName()));
+                buildCSVClass.write(String.format("public boolean is%sMissing() {\n return (%s & %s) != 0;\n}\n\n", col.getColumnName(), word, bit));
+                buildCSVClass.write(String.format("public void set%s(%s %s) {\nthis.%s = %s;\n", col.getColumnName(), fieldType(col), col.getColumnName(), col.getColumnName(), col.getColumnName()));
+                if(fieldType(col).equals(col.getColumnDataType()))
+                {
+                    buildCSVClass.write(String.format("if(%s == null)\n{\n%s |= %s;\nreturn;\n}\n", col.getColumnName(), word, bit));
+                }
+                buildCSVClass.write(String.format("%s &= ~%s;\n}\n\n", word, bit));
+            }
+            else
+            {
+                buildCSVClass.write(String.format("public %s get%s() {\n return %s;\n}\n\n", col.getColumnDataType(), col.getColumnName(), col.getColumnName()));
+                buildCSVClass.write(String.format("public void set%s(%s %s) {\nthis.%s = %s;\n}\n\n", col.getColumnName(), col.getColumnDataType(), col.getColumnName(), col.getColumnName(), col.getColumnName()));
+            }
+            accessorIndex++;
         }
 
         //add predicates
@@ -871,6 +1488,11 @@ public class AutoReadCSV implements ReadCSV {
             {
                 continue;
             }
+            else if(primitiveFields)
+            {
+                writePrimitivePredicates(col, csvClassName, fieldType(col), buildCSVClass);
+                continue;
+            }
             else if(col.getColumnDataType().equals("LocalDate") || col.getColumnDataType().equals("LocalDateTime"))
             {
                 buildCSVClass.write(String.format("public static Predicate<%s> %sIsBefore(%s %s)\n{\n", csvClassName, col.getColumnName(), col.getColumnDataType(), col.getColumnName().toLowerCase()));
@@ -903,7 +1525,8 @@ public class AutoReadCSV implements ReadCSV {
         {
             buildCSVClass.write(String.format("public static Predicate<%s> distinctBy%s()\n{\n", csvClassName, col.getColumnName()));
             buildCSVClass.write("Map<Object, Boolean> seen = new ConcurrentHashMap<>();\n");
-            buildCSVClass.write(String.format("return x86198 -> seen.putIfAbsent(x86198.get%s(), Boolean.TRUE) == null;", col.getColumnName()));
+            String key = primitiveFields ? distinctKey(col) : String.format("x86198.get%s()", col.getColumnName());
+            buildCSVClass.write(String.format("return x86198 -> seen.putIfAbsent(%s, Boolean.TRUE) == null;", key));
 
             buildCSVClass.write("}\n\n");
         }
@@ -913,18 +1536,23 @@ public class AutoReadCSV implements ReadCSV {
         buildCSVClass.write("Map<Object, Boolean> seen = new ConcurrentHashMap<>();\n");
         buildCSVClass.write("return x86198 -> seen.putIfAbsent(");
 
+        if(primitiveFields)
+        {
+            //missing values are distinct from every value, including 0 and false
+            buildCSVClass.write("java.util.Arrays.<Object>asList(");
+        }
         int plusIndex = 0;
         for(ColumnCSV col: columns)
         {
-            buildCSVClass.write(String.format("x86198.get%s().toString()", col.getColumnName()));
+            buildCSVClass.write(primitiveFields ? distinctKey(col) : String.format("x86198.get%s().toString()", col.getColumnName()));
 
             if(plusIndex < columns.size() - 1)
             {
-                buildCSVClass.write("+");
+                buildCSVClass.write(primitiveFields ? ", " : "+");
             }
             plusIndex++;
         }
-        buildCSVClass.write(", Boolean.TRUE) == null;");
+        buildCSVClass.write(primitiveFields ? "), Boolean.TRUE) == null;" : ", Boolean.TRUE) == null;");
         buildCSVClass.write("}\n\n");
 
         //add comparables ascending
@@ -934,6 +1562,11 @@ public class AutoReadCSV implements ReadCSV {
 
            buildCSVClass.write(String.format("public int compare(%s o1, %s o2) {\n", csvClassName, csvClassName));
 
+            if(primitiveFields)
+            {
+                writePrimitiveComparison(col, "o1", "o2", buildCSVClass);
+                continue;
+            }
             if(col.getColumnDataType().equals("String"))
             {
                 buildCSVClass.write(String.format("return o1.get%s().compareToIgnoreCase(o2.get%s());\n}\n}\n\n", col.getColumnName(), col.getColumnName()));
@@ -968,6 +1601,11 @@ public class AutoReadCSV implements ReadCSV {
 
             buildCSVClass.write(String.format("public int compare(%s o1, %s o2) {\n", csvClassName, csvClassName));
 
+            if(primitiveFields)
+            {
+                writePrimitiveComparison(col, "o2", "o1", buildCSVClass);
+                continue;
+            }
             if(col.getColumnDataType().equals("String"))
             {
                 buildCSVClass.write(String.format("return -o1.get%s().compareToIgnoreCase(o2.get%s());\n}\n}\n\n", col.getColumnName(), col.getColumnName()));
@@ -994,61 +1632,324 @@ public class AutoReadCSV implements ReadCSV {
 
         }
 
+        //row mapper used by readCSV() to call the @CSVConstructor without reflection
+        buildCSVClass.write(String.format("public static class RowMapper implements CSVRowMapper<%s> {\n", csvClassName));
+        buildCSVClass.write("public String[] getColumnNames() {\nreturn new String[] {");
+        int nameIndex = 0;
+        for (ColumnCSV col : columns) {
+            buildCSVClass.write(String.format(nameIndex == 0 ? "\"%s\"" : ", \"%s\"", col.getColumnName()));
+            nameIndex++;
+        }
+        buildCSVClass.write("};\n}\n\n");
+
+        //date/time formatters are compiled once per column
+        for (ColumnCSV col : columns) {
+            if(col.getColumnDataType().equals("LocalDate") || col.getColumnDataType().equals("LocalDateTime"))
+            {
+                buildCSVClass.write(String.format("private static final java.time.format.DateTimeFormatter %sFormat = CSVCellParser.formatter(\"%s\");\n\n", col.getColumnName(), col.getColumnDateFormat()));
+            }
+        }
+
+        //repeated String and date cells share one parsed instance, per read
+        for (ColumnCSV col : columns) {
+            if(col.getColumnDataType().equals("LocalDate") || col.getColumnDataType().equals("LocalDateTime"))
+            {
+                buildCSVClass.write(String.format("private final CSVValueCache<%s> %sValues = new CSVValueCache<>(cell -> CSVCellParser.parse%s(cell, %sFormat));\n\n",
+                        col.getColumnDataType(), col.getColumnName(), col.getColumnDataType(), col.getColumnName()));
+            }
+            else if(col.getColumnDataType().equals("String"))
+            {
+                buildCSVClass.write(String.format("private final CSVValueCache<String> %sValues = new CSVValueCache<>(CSVCellParser::parse%sString);\n\n",
+                        col.getColumnName(), primitiveFields ? "Nullable" : ""));
+            }
+        }
+
+        buildCSVClass.write(String.format("public %s mapRow(String[] row) {\nreturn new %s(", csvClassName, csvClassName));
+        int cellIndex = 0;
+        for (ColumnCSV col : columns) {
+            String separator = cellIndex == 0 ? "\n" : ",\n";
+            if(col.getColumnDataType().equals("LocalDate") || col.getColumnDataType().equals("LocalDateTime") || col.getColumnDataType().equals("String"))
+            {
+                buildCSVClass.write(String.format("%s%sValues.get(row[%d])", separator, col.getColumnName(), cellIndex));
+            }
+            else
+            {
+                buildCSVClass.write(String.format("%sCSVCellParser.parse%s%s(row[%d])", separator, primitiveFields ? "Nullable" : "", col.getColumnDataType(), cellIndex));
+            }
+            cellIndex++;
+        }
+        buildCSVClass.write(");\n}\n}\n\n");
+
+        if(offHeapView)
+        {
+            writeOffHeapView(columns, buildCSVClass);
+        }
+
         //write toString signature to File
         buildCSVClass.write("@Override()\npublic String toString() {\nreturn ");
         //Create toString String
         int j = 0;
         for (ColumnCSV col : columns) {
+            //missing values print as NaN, as empty cells do without primitiveFields
+            String value = primitiveFields ? String.format("(is%sMissing() ? \"NaN\" : %s)", col.getColumnName(), col.getColumnName()) : col.getColumnName();
             if (j < columns.size() - 1) {
-                buildCSVClass.write(String.format("\"%s: \" +  %s + \"  \"\n + ", col.getColumnName(), col.getColumnName()));
+                buildCSVClass.write(String.format("\"%s: \" +  %s + \"  \"\n + ", col.getColumnName(), value));
             } else {
-                buildCSVClass.write(String.format("\"%s: \" +  %s + \"  \";\n}\n\n}", col.getColumnName(), col.getColumnName()));
+                buildCSVClass.write(String.format("\"%s: \" +  %s + \"  \";\n}\n\n}", col.getColumnName(), value));
             }
             j++;
 
         }
-        //Close FileWriter
+        //Close Writer
         buildCSVClass.close();
 
     }
 
-    //Logic to clean up confusing/illegal characters from cells (Needs to be improved)
-    private ArrayList<String> cleanCells(ArrayList<String> currentColumnValues)
+    /**
+     * @return datatype of the field generated for the column. With primitiveFields, Integer, Double and Boolean columns are int, double
+     * and boolean.
+     */
+    private String fieldType(ColumnCSV col)
+    {
+        return primitiveFields ? viewType(col) : col.getColumnDataType().toString();
+    }
+
+    //word of the missing bit mask holding the bit of a column, ex: "missing0"
+    private static String missingWord(int colIndex)
+    {
+        return String.format("missing%d", colIndex / 64);
+    }
+
+    //bit of a column in its missing bit mask word, ex: "(1L << 3)"
+    private static String missingBit(int colIndex)
+    {
+        return String.format("(1L << %d)", colIndex % 64);
+    }
+
+    //key of the column value for distinctBy predicates with primitiveFields. Missing values share a key that no value has
+    private static String distinctKey(ColumnCSV col)
+    {
+        return String.format("(x86198.is%sMissing() ? java.util.Optional.empty() : (Object) x86198.get%s())", col.getColumnName(), col.getColumnName());
+    }
+
+    /**
+     * Write the predicates of a column with primitiveFields, or of the off heap View. Missing values never match.
+     * @param className class the predicates test, ex: "View".
+     * @param valueType datatype returned by the getter of the column.
+     */
+    private void writePrimitivePredicates(ColumnCSV col, String className, String valueType, Writer buildCSVClass) throws IOException
     {
-        ArrayList<String> cleanValues = new ArrayList<>();
+        String name = col.getColumnName();
+        String param = name.toLowerCase();
+        String present = String.format("!x86198.is%sMissing()", name);
+        if(col.getColumnDataType().equals("LocalDate") || col.getColumnDataType().equals("LocalDateTime"))
+        {
+            buildCSVClass.write(String.format("public static Predicate<%s> %sIsBefore(%s %s)\n{\n", className, name, valueType, param));
+            buildCSVClass.write(String.format("return x86198 -> %s && x86198.get%s().isBefore(%s);\n}\n\n", present, name, param));
+
+            buildCSVClass.write(String.format("public static Predicate<%s> %sIsAfter(%s %s)\n{\n", className, name, valueType, param));
+            buildCSVClass.write(String.format("return x86198 -> %s && x86198.get%s().isAfter(%s);\n}\n\n", present, name, param));
+            return;
+        }
+
+        buildCSVClass.write(String.format("public static Predicate<%s> %sIsEqualTo(%s %s)\n{\n", className, name, valueType, param));
+        buildCSVClass.write(String.format("return x86198 -> %s && x86198.get%s() == %s;\n}\n\n", present, name, param));
+        if(col.getColumnDataType().equals("Boolean"))
+        {
+            return;
+        }
 
-        //remove quotes and empties-->NaN
-        for(String cell: currentColumnValues)
+        buildCSVClass.write(String.format("public static Predicate<%s> %sIsLessThanOrEqualTo(%s %s)\n{\n", className, name, valueType, param));
+        buildCSVClass.write(String.format("return x86198 -> %s && x86198.get%s() <= %s;\n}\n\n", present, name, param));
+
+        buildCSVClass.write(String.format("public static Predicate<%s> %sIsGreaterThanOrEqualTo(%s %s)\n{\n", className, name, valueType, param));
+        buildCSVClass.write(String.format("return x86198 -> %s && x86198.get%s() >= %s;\n}\n\n", present, name, param));
+    }
+
+    /**
+     * Write the body of a comparator of a column with primitiveFields or of the off heap View, closing the comparator class. Missing values sort last in both
+     * directions.
+     * @param first object compared first, "o2" to sort descending.
+     * @param second the other object.
+     */
+    private void writePrimitiveComparison(ColumnCSV col, String first, String second, Writer buildCSVClass) throws IOException
+    {
+        String name = col.getColumnName();
+        buildCSVClass.write(String.format("if(o1.is%sMissing() || o2.is%sMissing())\n{\n", name, name));
+        buildCSVClass.write(String.format("return Boolean.compare(o1.is%sMissing(), o2.is%sMissing());\n}\n", name, name));
+        switch(col.getColumnDataType().toString())
         {
-            String correctedCell = cell.replaceAll("\"", "").trim();
-            if(correctedCell.equals(""))
+            case "String":
+                buildCSVClass.write(String.format("return %s.get%s().compareToIgnoreCase(%s.get%s());\n}\n}\n\n", first, name, second, name));
+                break;
+            case "LocalDate":
+            case "LocalDateTime":
+                buildCSVClass.write(String.format("return %s.get%s().compareTo(%s.get%s());\n}\n}\n\n", first, name, second, name));
+                break;
+            default:
+                buildCSVClass.write(String.format("return %s.compare(%s.get%s(), %s.get%s());\n}\n}\n\n", col.getColumnDataType(), first, name, second, name));
+        }
+    }
+
+    /**
+     * Write the View class, a flyweight over the rows of an OffHeapCSV. Getters read straight from the off heap pages of the row the view
+     * is moved to, and return int, double and boolean for numeric and Boolean columns. Missing values are handled as with primitiveFields.
+     */
+    private void writeOffHeapView(ArrayList<ColumnCSV> columns, Writer buildCSVClass) throws IOException
+    {
+        buildCSVClass.write("public static final class View implements OffHeapCSV.RowView {\n");
+        buildCSVClass.write("private final OffHeapCSV store;\n\nprivate int row;\n\n");
+        for (ColumnCSV col : columns) {
+            buildCSVClass.write(String.format("private final int %sColumn;\n\n", col.getColumnName()));
+        }
+
+        //columns are resolved once, and checked against the datatypes the view was generated for
+        buildCSVClass.write("public View(OffHeapCSV store) {\nthis.store = store;\n");
+        for (ColumnCSV col : columns) {
+            buildCSVClass.write(String.format("%sColumn = store.getColumnIndex(\"%s\", \"%s\");\n", col.getColumnName(), col.getColumnName(), col.getColumnDataType()));
+        }
+        buildCSVClass.write("}\n\n");
+
+        buildCSVClass.write("public void moveTo(int row) {\nthis.row = row;\n}\n\n");
+        buildCSVClass.write("public int getRow() {\n return row;\n}\n\n");
+
+        for (ColumnCSV col : columns) {
+            String valueType = viewType(col);
+            String getter;
+            switch(valueType)
             {
-                correctedCell = "NaN";
+                case "int":
+                    getter = "getInt";
+                    break;
+                case "double":
+                    getter = "getDouble";
+                    break;
+                case "boolean":
+                    getter = "getBoolean";
+                    break;
+                default:
+                    getter = "get" + valueType;
+            }
+            buildCSVClass.write(String.format("public %s get%s() {\n return store.%s(row, %sColumn);\n}\n\n", valueType, col.getColumnName(), getter, col.getColumnName()));
+            buildCSVClass.write(String.format("public boolean is%sMissing() {\n return store.isMissing(row, %sColumn);\n}\n\n", col.getColumnName(), col.getColumnName()));
+        }
 
+        for (ColumnCSV col : columns) {
+            if(!col.getColumnDataType().equals("String"))
+            {
+                writePrimitivePredicates(col, "View", viewType(col), buildCSVClass);
             }
-            cleanValues.add(correctedCell);
         }
 
-        return cleanValues;
+        for (ColumnCSV col : columns) {
+            buildCSVClass.write(String.format("public static class SortAscendingBy%s implements Comparator<View> {\n", col.getColumnName()));
+            buildCSVClass.write("public int compare(View o1, View o2) {\n");
+            writePrimitiveComparison(col, "o1", "o2", buildCSVClass);
+
+            buildCSVClass.write(String.format("public static class SortDescendingBy%s implements Comparator<View> {\n", col.getColumnName()));
+            buildCSVClass.write("public int compare(View o1, View o2) {\n");
+            writePrimitiveComparison(col, "o2", "o1", buildCSVClass);
+        }
+
+        buildCSVClass.write("@Override()\npublic String toString() {\nreturn ");
+        int j = 0;
+        for (ColumnCSV col : columns) {
+            String value = String.format("(is%sMissing() ? \"NaN\" : get%s())", col.getColumnName(), col.getColumnName());
+            buildCSVClass.write(String.format(j < columns.size() - 1 ? "\"%s: \" +  %s + \"  \"\n + " : "\"%s: \" +  %s + \"  \";\n}\n}\n\n", col.getColumnName(), value));
+            j++;
+        }
     }
 
-    //Same logic as cleanCells, but for an individual value. Needs to be improved
-    private String cleanCell(String cell)
+    //datatype of a column with primitive fields, and of the View getter of a column
+    private static String viewType(ColumnCSV col)
     {
-        String correctedCell = cell.replaceAll("\"", "").trim();
-        if(correctedCell.equals(""))
+        switch(col.getColumnDataType().toString())
         {
-            correctedCell = "NaN";
+            case "Integer":
+                return "int";
+            case "Double":
+                return "double";
+            case "Boolean":
+                return "boolean";
+            default:
+                return col.getColumnDataType().toString();
+        }
+    }
+
+    /**
+     * Open a tokenizer over the CSV file, or the CSV URL if this instance was created from a URL.
+     * @return tokenizer positioned at the header row, or null if the CSV could not be opened.
+     */
+    private CSVTokenizer openCSVTokenizer()
+    {
+        try {
+            if(csvFilePath != null)
+            {
+                return new CSVTokenizer(new InputStreamReader(CompressedInput.open(new FileInputStream(csvFilePath), csvFilePath)), delimeter);
+            }
+        } catch (FileNotFoundException ex) {
+            System.out.println("ERROR: CSV File Not Found. Check your File Path. ");
+            return null;
+        } catch (IOException e) {
+            System.out.println("ERROR: Failed to decompress CSV file. ");
+            return null;
+        }
+
+        try {
+            if(cachedURLFile != null)
+            {
+                return new CSVTokenizer(new InputStreamReader(CompressedInput.open(new FileInputStream(cachedURLFile), csvFileURL.getPath())), delimeter);
+            }
+            InputStream download = SegmentedDownload.open(csvFileURL, urlConnections, urlSegmentBytes);
+            return new CSVTokenizer(new InputStreamReader(CompressedInput.open(download, csvFileURL.getPath())), delimeter);
+        } catch (IOException e) {
+            System.out.println("ERROR: CSV file not found at the given URL. Check your URL. ");
+        }
+        return null;
+    }
 
+    /**
+     * Bring the local copy of a CSV read from a URL up to date, once per read, so every pass of the read (typing, parsing, verification)
+     * uses the same copy. Without urlCaching, or if the cache cannot be used, the URL is read directly.
+     */
+    private void refreshURLCache()
+    {
+        cachedURLFile = null;
+        if(csvFileURL == null || !urlCaching || !URLCache.isCacheable(csvFileURL))
+        {
+            return;
         }
+        try {
+            cachedURLFile = new URLCache(new File(urlCacheDirPath), urlCacheMaxBytes, urlConnections, urlSegmentBytes).fetch(csvFileURL);
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println(String.format("ERROR: Failed to cache CSV from URL. Reading it directly. %s", e.getMessage()));
+        }
+    }
 
-        return correctedCell;
+    /**
+     * @return true if the CSV is a local file that can be split into byte ranges of rows, false for URLs, compressed files and delimeters
+     * that are not ASCII (see CSVRecordScanner).
+     */
+    private boolean isSplittable()
+    {
+        return csvFilePath != null && !CompressedInput.isCompressed(new File(csvFilePath)) && CSVRecordScanner.canScan(delimeter);
     }
 
     private String createClassName(String csvFilePath)
     {
         String csvNameNoExtension = csvFilePath.substring(csvFilePath.lastIndexOf("/") + 1);
-        csvNameNoExtension = csvNameNoExtension.substring(0, csvNameNoExtension.lastIndexOf("."));
+        //compressed files keep the extension of the CSV inside, ex: menu.csv.gz
+        csvNameNoExtension = csvNameNoExtension.replaceFirst("(?i)\\.(gz|gzip|zip|zz|deflate)$", "");
+        //the format of a compressed file is detected from its bytes, so it may have no inner extension, ex: export.gz
+        if(csvNameNoExtension.lastIndexOf(".") >= 0)
+        {
+            csvNameNoExtension = csvNameNoExtension.substring(0, csvNameNoExtension.lastIndexOf("."));
+        }
+        if(csvNameNoExtension.isEmpty())
+        {
+            System.out.println(String.format("ERROR: Cannot name a CSV class after \"%s\". Use useCsvClassOfName() to name it. ", csvFilePath));
+            return null;
+        }
         String csvClassName = csvNameNoExtension.substring(0,1).toUpperCase() + csvNameNoExtension.substring(1).toLowerCase();
 
         //remove unqualifiedchar
@@ -1079,27 +1980,6 @@ public class AutoReadCSV implements ReadCSV {
         return columnName;
     }
 
-    private boolean checkIntTrue(String cell)
-    {
-        Integer intCell;
-        try
-        {
-            intCell = Integer.parseInt(cell);
-        }catch(NumberFormatException ex)
-        {
-            intCell = 0;
-        }
-
-        if(intCell == 1)
-        {
-            return true;
-        }
-        else
-        {
-            return false;
-        }
-    }
-
     private boolean checkIntFalse(String cell)
     {
         Integer intCell;
@@ -1132,7 +2012,31 @@ public class AutoReadCSV implements ReadCSV {
         return delimeter;
     }
 
+    /**
+     * Set the delimeter of the csv file. The delimeter is a single character, ex: ";" or "\t". Regex escaped characters, ex: "\\|", are
+     * accepted for compatibility with versions that split rows with a regex. Other delimeters are rejected and the delimeter is unchanged.
+     * @param delimeter single character delimeter.
+     */
     public void setDelimeter(String delimeter) {
+        //a regex escaped character, ex: \| or \t
+        if(delimeter != null && delimeter.length() == 2 && delimeter.charAt(0) == '\\')
+        {
+            char escaped = delimeter.charAt(1);
+            if(escaped == 't')
+            {
+                delimeter = "\t";
+            }
+            else if(!Character.isLetterOrDigit(escaped))
+            {
+                delimeter = String.valueOf(escaped);
+            }
+        }
+        if(delimeter == null || delimeter.length() != 1 || delimeter.charAt(0) == '"' || delimeter.charAt(0) == '\n' || delimeter.charAt(0) == '\r')
+        {
+            System.out.println(String.format("ERROR: Delimeter \"%s\" must be a single character other than a quote or line break. Keeping \"%s\". ",
+                    delimeter, this.delimeter));
+            return;
+        }
         this.delimeter = delimeter;
     }
 
@@ -1165,6 +2069,149 @@ public class AutoReadCSV implements ReadCSV {
         this.heuristicTyping = heuristicTyping;
     }
 
+    public SamplingStrategy getSamplingStrategy() {
+        return samplingStrategy;
+    }
+
+    public void setSamplingStrategy(SamplingStrategy samplingStrategy) {
+        this.samplingStrategy = samplingStrategy;
+    }
+
+    public Integer getSampleSize() {
+        return sampleSize;
+    }
+
+    public void setSampleSize(Integer sampleSize) {
+        this.sampleSize = sampleSize;
+    }
+
+    public Boolean getVerifySampledTypes() {
+        return verifySampledTypes;
+    }
+
+    public void setVerifySampledTypes(Boolean verifySampledTypes) {
+        this.verifySampledTypes = verifySampledTypes;
+    }
+
+    /**
+     * Result of the background check started when a CSV class is generated with heuristicTyping and verifySampledTypes enabled.
+     * Mistyped columns are also reported on the console as they are found.
+     * @return future completing with the names of the columns whose sampled type did not match the full csv, or null if no check was started.
+     */
+    public CompletableFuture<List<String>> getSampledTypeVerification() {
+        return sampledTypeVerification;
+    }
+
+    public Boolean getParallelParsing() {
+        return parallelParsing;
+    }
+
+    public void setParallelParsing(Boolean parallelParsing) {
+        this.parallelParsing = parallelParsing;
+    }
+
+    public Boolean getInMemoryCompilation() {
+        return inMemoryCompilation;
+    }
+
+    public void setInMemoryCompilation(Boolean inMemoryCompilation) {
+        this.inMemoryCompilation = inMemoryCompilation;
+    }
+
+    public Boolean getWriteGeneratedSource() {
+        return writeGeneratedSource;
+    }
+
+    public void setWriteGeneratedSource(Boolean writeGeneratedSource) {
+        this.writeGeneratedSource = writeGeneratedSource;
+    }
+
+    public Boolean getPrimitiveFields() {
+        return primitiveFields;
+    }
+
+    public void setPrimitiveFields(Boolean primitiveFields) {
+        this.primitiveFields = primitiveFields;
+    }
+
+    public Boolean getOffHeapView() {
+        return offHeapView;
+    }
+
+    public void setOffHeapView(Boolean offHeapView) {
+        this.offHeapView = offHeapView;
+    }
+
+    public Boolean getUrlCaching() {
+        return urlCaching;
+    }
+
+    public void setUrlCaching(Boolean urlCaching) {
+        this.urlCaching = urlCaching;
+    }
+
+    public String getUrlCacheDirPath() {
+        return urlCacheDirPath;
+    }
+
+    public void setUrlCacheDirPath(String urlCacheDirPath) {
+        this.urlCacheDirPath = urlCacheDirPath;
+    }
+
+    public Long getUrlCacheMaxBytes() {
+        return urlCacheMaxBytes;
+    }
+
+    public void setUrlCacheMaxBytes(Long urlCacheMaxBytes) {
+        this.urlCacheMaxBytes = urlCacheMaxBytes;
+    }
+
+    public Integer getUrlConnections() {
+        return urlConnections;
+    }
+
+    public void setUrlConnections(Integer urlConnections) {
+        this.urlConnections = urlConnections;
+    }
+
+    public Long getUrlSegmentBytes() {
+        return urlSegmentBytes;
+    }
+
+    public void setUrlSegmentBytes(Long urlSegmentBytes) {
+        if(urlSegmentBytes == null || urlSegmentBytes < 1 || urlSegmentBytes > Integer.MAX_VALUE)
+        {
+            System.out.println(String.format("ERROR: Segment size %s must be from 1 to %d bytes. Keeping %d. ", urlSegmentBytes,
+                    Integer.MAX_VALUE, this.urlSegmentBytes));
+            return;
+        }
+        this.urlSegmentBytes = urlSegmentBytes;
+    }
+
+    public Boolean getFollowFromStart() {
+        return followFromStart;
+    }
+
+    public void setFollowFromStart(Boolean followFromStart) {
+        this.followFromStart = followFromStart;
+    }
+
+    public Long getFollowPollMillis() {
+        return followPollMillis;
+    }
+
+    public void setFollowPollMillis(Long followPollMillis) {
+        this.followPollMillis = followPollMillis;
+    }
+
+    public Integer getRowIndexInterval() {
+        return rowIndexInterval;
+    }
+
+    public void setRowIndexInterval(Integer rowIndexInterval) {
+        this.rowIndexInterval = rowIndexInterval;
+    }
+
     /**
      * read in a CSV of a different file name with the same column headers and datatypes without generating an additional class.
      * Ex reportA.csv and ReportB.csv have the same columns/datatypes, but you only want to have one class file.
@@ -1,20 +1,77 @@
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.lang.reflect.AnnotatedType;
-import java.lang.reflect.Field;
-import java.text.Annotation;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 /**
  * Class to write an ArrayList of objects to a CSV file.
- * NOTE: Does not support CSV "cells" containing commas at this time.
+ *
+ * Every @CSVField of the objects is written, with the field names as the header. Cells containing commas, quotes or line breaks are
+ * quoted as in RFC 4180, so the file can be read back with AutoReadCSV.
+ *
+ * Rows produced over time, or too many to hold in memory, can be written as they come with openSession().
+ *
+ * Files whose name ends in .gz, ex: export.csv.gz, are gzip compressed as they are written, on all cores.
  */
 public class AutoWriteCSV implements WriteCSV{
+
+    /**
+     * Initial capacity of the buffer of each range of a parallel write.
+     */
+    private static final int BUFFER_CHARS = 64 * 1024;
+
+    /**
+     * Rows encoded by each task of a parallel write.
+     */
+    private static final int ROWS_PER_RANGE = 4096;
+
     private String csvFilePath;
 
     private File csvFileObject;
 
+    /**
+     * Encode ranges of rows on all cores, and write the encoded ranges in order with gathering writes. The file is the same as written
+     * sequentially. Has no effect on single core machines. Defaults to false.
+     */
+    private Boolean parallelWriting = false;
+
+    /**
+     * Add rows to the end of the file instead of replacing it. The header is only written if the file is empty or does not exist.
+     * Defaults to false.
+     */
+    private Boolean append = false;
+
+    /**
+     * Interval at which an open CSVWriterSession writes its buffered rows to the file, 0 to only write them when the buffer is full.
+     * Defaults to 1000.
+     */
+    private Long flushIntervalMillis = 1000L;
+
+    /**
+     * Wait until every flush is on disk (FileChannel.force), so rows written before a crash are not lost. Slower. Defaults to false.
+     */
+    private Boolean forceOnFlush = false;
+
+    /**
+     * Number of files writePartitionedCSV() keeps open at once. Defaults to 64.
+     */
+    private Integer maxOpenPartitions = 64;
+
 
     public AutoWriteCSV() {
     }
@@ -39,74 +96,242 @@ public class AutoWriteCSV implements WriteCSV{
 
     /**
      * Writes the provided ArrayList of objects to a CSV file specified by the csvFileObject and csvFilePath fields.
-     * NOTE: Does not support CSV "cells" containing commas at this time.
+     * The fields of the class are looked up once, and rows are formatted into a buffer that is written to the file in large blocks.
+     * An empty list writes an empty file, or leaves it as it is when appending: the class of an empty list is unknown, use openSession()
+     * to write the header of a CSV with no rows.
      * @param objectsToWrite Objects to write to CSV file
      * @param <typeparam> Type of the objects to write to CSV file.
      * @throws IOException
-     * @throws IllegalAccessException
+     * @throws IllegalAccessException if a @CSVField of the class cannot be read.
      */
     public  <typeparam> void writeCSV(ArrayList<typeparam> objectsToWrite) throws IOException, IllegalAccessException {
-        FileWriter writeToCSV = new FileWriter(csvFileObject);
-
-        Field[] fields = objectsToWrite.get(0).getClass().getDeclaredFields();
+        if(objectsToWrite.isEmpty())
+        {
+            if(isGzip(csvFileObject) && !append)
+            {
+                new ParallelGzipOutputStream(new FileOutputStream(csvFileObject)).close();
+            }
+            else
+            {
+                new FileOutputStream(csvFileObject, append).close();
+            }
+            return;
+        }
 
-        for(Field f: fields)
+        //encoding in ranges only pays off when the ranges run on more than one core
+        if(parallelWriting && Runtime.getRuntime().availableProcessors() > 1)
         {
-            f.setAccessible(true);
+            writeCSVParallel(objectsToWrite);
+            return;
         }
 
-        ArrayList<Field> fieldsToWrite = new ArrayList<>();
+        @SuppressWarnings("unchecked")
+        Class<typeparam> CSVClass = (Class<typeparam>) objectsToWrite.get(0).getClass();
+        try (CSVWriterSession<typeparam> session = new CSVWriterSession<>(csvFileObject, CSVClass, append, isGzip(csvFileObject), 0, forceOnFlush)) {
+            session.writeAll(objectsToWrite);
+        }
+    }
 
-        for(Field f: fields)
+    /**
+     * Open the file to write rows as they are produced, from a Stream, an Iterator, or batches over time, without holding them in memory.
+     * The file is truncated unless append is set. The session flushes every flushIntervalMillis, and must be closed.
+     *
+     * <pre>{@code
+     * try (CSVWriterSession<Menu> session = wCSV.openSession(Menu.class)) {
+     *     session.writeAll(results.stream());
+     * }
+     * }</pre>
+     * @param CSVClass class of the rows, which gives the header even if no row is written.
+     * @throws IllegalAccessException if a @CSVField of the class cannot be read.
+     */
+    public <typeparam> CSVWriterSession<typeparam> openSession(Class<typeparam> CSVClass) throws IOException, IllegalAccessException {
+        return new CSVWriterSession<>(csvFileObject, CSVClass, append, isGzip(csvFileObject), flushIntervalMillis, forceOnFlush);
+    }
+
+    /**
+     * Write the objects to one CSV file per value of one of their @CSVFields, in a single pass over the list, ex: with partitionField
+     * "Category", the rows of menu.csv are written to menu-Breakfast.csv, menu-Beef_Pork.csv... next to it. Runs of characters of the value that
+     * are not safe in file names are replaced by '_', and missing values are written to menu-missing.csv.
+     *
+     * Rows keep their order within each file. At most maxOpenPartitions files are open at once, and with parallelWriting the rows are
+     * encoded on all cores. append and forceOnFlush apply to every file.
+     * @param objectsToWrite Objects to write to CSV files.
+     * @param partitionField name of the @CSVField, as in the header of the generated class.
+     * @return the file written for every value of the field.
+     * @throws IllegalAccessException if a @CSVField of the class cannot be read.
+     * @throws IllegalArgumentException if the class has no @CSVField of that name.
+     */
+    public <typeparam> Map<String, File> writePartitionedCSV(ArrayList<typeparam> objectsToWrite, String partitionField)
+            throws IOException, IllegalAccessException {
+        if(objectsToWrite.isEmpty())
         {
-            if(f.getDeclaredAnnotations().length > 0)
-            {
-                if(f.getDeclaredAnnotations()[0].toString().equals("@CSVField()"));
-                {
-                    fieldsToWrite.add(f);
-                }
-            }
+            return new LinkedHashMap<>();
+        }
 
+        Class<?> CSVClass = objectsToWrite.get(0).getClass();
+        try {
+            CSVRowWriter.forClass(CSVClass);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalAccessException(e.getMessage());
         }
 
-        for(int i = 0; i < fieldsToWrite.size(); i++)
-        {
+        CSVPartitionWriter partitionWriter = new CSVPartitionWriter(csvFileObject, CSVClass, partitionField, append, forceOnFlush,
+                parallelWriting && Runtime.getRuntime().availableProcessors() > 1, maxOpenPartitions);
+        return partitionWriter.write(objectsToWrite);
+    }
 
-            if(i < fieldsToWrite.size() - 1)
-            {
-                writeToCSV.write(fieldsToWrite.get(i).getName() + ",");
-            }
-            else
-            {
-                writeToCSV.write(fieldsToWrite.get(i).getName() + "\n");
-            }
+    /**
+     * Write the objects from ranges of ROWS_PER_RANGE rows encoded on the fork-join pool. Ranges are encoded a wave at a time, a few per
+     * core, while the wave before is written, so memory is bounded by two waves of encoded rows whatever the size of the list.
+     */
+    private <typeparam> void writeCSVParallel(ArrayList<typeparam> objectsToWrite) throws IOException, IllegalAccessException {
+        CSVRowWriter rowWriter;
+        try {
+            rowWriter = CSVRowWriter.forClass(objectsToWrite.get(0).getClass());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalAccessException(e.getMessage());
         }
 
-        for(Object o: objectsToWrite)
-        {
-            for(int i = 0; i < fieldsToWrite.size(); i++)
+        //same charset as the OutputStreamWriter of a sequential write
+        Charset charset = Charset.defaultCharset();
+        int ranges = (objectsToWrite.size() + ROWS_PER_RANGE - 1) / ROWS_PER_RANGE;
+        int rangesPerWave = ForkJoinPool.getCommonPoolParallelism() * 4;
+
+        boolean header = !append || csvFileObject.length() == 0;
+        try (FileChannel channel = FileChannel.open(csvFileObject.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING)) {
+            ParallelGzipOutputStream gzip = isGzip(csvFileObject) ? new ParallelGzipOutputStream(Channels.newOutputStream(channel)) : null;
+            CompletableFuture<ByteBuffer[]> wave = encodeWave(objectsToWrite, rowWriter, charset, header, 0, Math.min(ranges, rangesPerWave));
+            for(int first = 0; first < ranges; first += rangesPerWave)
             {
+                ByteBuffer[] encoded = join(wave);
 
-                if(i < fieldsToWrite.size() - 1)
+                int next = first + rangesPerWave;
+                if(next < ranges)
                 {
+                    wave = encodeWave(objectsToWrite, rowWriter, charset, header, next, Math.min(ranges, next + rangesPerWave));
+                }
 
-                    if(fieldsToWrite.get(i).get(o).toString().contains(","))
-                    {
-                        writeToCSV.write("\"" + fieldsToWrite.get(i).get(o).toString() + "\",");
-                    }
-                    else
+                if(gzip != null)
+                {
+                    for(ByteBuffer range: encoded)
                     {
-                        writeToCSV.write(fieldsToWrite.get(i).get(o).toString() + ",");
+                        gzip.write(range.array(), range.arrayOffset() + range.position(), range.remaining());
                     }
-
+                    continue;
                 }
-                else
+                //gathering writes may write part of the buffers
+                while(encoded[encoded.length - 1].hasRemaining())
                 {
-                    writeToCSV.write(fieldsToWrite.get(i).get(o).toString() + "\n");
+                    channel.write(encoded);
                 }
             }
+            if(gzip != null)
+            {
+                gzip.finish();
+            }
+            if(forceOnFlush)
+            {
+                channel.force(false);
+            }
+        }
+    }
+
+    private static CompletableFuture<ByteBuffer[]> encodeWave(ArrayList<?> objectsToWrite, CSVRowWriter rowWriter, Charset charset,
+                                                              boolean header, int firstRange, int endRange) {
+        return CompletableFuture.supplyAsync(() -> IntStream.range(firstRange, endRange).parallel()
+                .mapToObj(range -> encodeRange(objectsToWrite, rowWriter, charset, header && range == 0, range))
+                .toArray(ByteBuffer[]::new));
+    }
+
+    private static ByteBuffer encodeRange(ArrayList<?> objectsToWrite, CSVRowWriter rowWriter, Charset charset, boolean header, int range) {
+        int from = range * ROWS_PER_RANGE;
+        int to = Math.min(objectsToWrite.size(), from + ROWS_PER_RANGE);
+        StringBuilder buffer = new StringBuilder(BUFFER_CHARS);
+        if(header)
+        {
+            rowWriter.writeHeader(buffer);
+        }
+        for(int i = from; i < to; i++)
+        {
+            rowWriter.writeRow(objectsToWrite.get(i), buffer);
+        }
+        return encode(charset, buffer);
+    }
+
+    /**
+     * @return true for files ending in .gz, which are written gzip compressed.
+     */
+    static boolean isGzip(File csvFileObject) {
+        return csvFileObject.getName().toLowerCase().endsWith(".gz");
+    }
+
+    /**
+     * Encode formatted rows as an OutputStreamWriter would, replacing characters the charset cannot encode.
+     */
+    static ByteBuffer encode(Charset charset, CharSequence rows) {
+        try {
+            return charset.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                    .encode(CharBuffer.wrap(rows));
+        } catch (CharacterCodingException e) {
+            throw new UncheckedIOException(e); //not thrown when replacing
         }
+    }
+
+    /**
+     * Wait for encoded rows, rethrowing the IOException of a failed encoding.
+     */
+    static <V> V join(CompletableFuture<V> encoding) throws IOException {
+        try {
+            return encoding.join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof UncheckedIOException)
+            {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        }
+    }
+
+    public Boolean getParallelWriting() {
+        return parallelWriting;
+    }
+
+    public void setParallelWriting(Boolean parallelWriting) {
+        this.parallelWriting = parallelWriting;
+    }
+
+    public Boolean getAppend() {
+        return append;
+    }
+
+    public void setAppend(Boolean append) {
+        this.append = append;
+    }
+
+    public Long getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+
+    public void setFlushIntervalMillis(Long flushIntervalMillis) {
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    public Boolean getForceOnFlush() {
+        return forceOnFlush;
+    }
+
+    public void setForceOnFlush(Boolean forceOnFlush) {
+        this.forceOnFlush = forceOnFlush;
+    }
+
+    public Integer getMaxOpenPartitions() {
+        return maxOpenPartitions;
+    }
 
-        writeToCSV.close();
+    public void setMaxOpenPartitions(Integer maxOpenPartitions) {
+        this.maxOpenPartitions = maxOpenPartitions;
     }
 }
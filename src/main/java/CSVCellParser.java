@@ -0,0 +1,221 @@
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Converts individual CSV cells into the datatypes supported by AutomaticCSV. Used by generated CSVRowMapper classes and by the
+ * MethodHandle based binder, so both produce identical values.
+ */
+public final class CSVCellParser {
+
+    private static final DateTimeFormatter DATE_TIME_MDY_HM = DateTimeFormatter.ofPattern("M/d/y H:m");
+
+    private static final DateTimeFormatter DATE_TIME_MDY_HMS = DateTimeFormatter.ofPattern("M/d/y H:m:s");
+
+    private static final DateTimeFormatter[] DATE_FORMATS = {
+            DateTimeFormatter.ISO_LOCAL_DATE,
+            DateTimeFormatter.ofPattern("M/d/yyyy"),
+            DateTimeFormatter.ofPattern("M/d/yy"),
+            DateTimeFormatter.ofPattern("M-d-yyyy"),
+            DateTimeFormatter.ofPattern("M-d-yy"),
+            DateTimeFormatter.ofPattern("yyyy/M/d")
+    };
+
+    //compiled formatters by pattern, shared by every column using the same @CSVField format
+    private static final ConcurrentHashMap<String, DateTimeFormatter> FORMATTERS = new ConcurrentHashMap<>();
+
+    private CSVCellParser() {}
+
+    /**
+     * Compile a @CSVField format into a DateTimeFormatter, once per pattern.
+     * @param pattern DateTimeFormatter pattern, ex: "M/d/yyyy".
+     * @return the cached formatter, or null if the pattern is empty.
+     */
+    public static DateTimeFormatter formatter(String pattern) {
+        if(pattern == null || pattern.isEmpty())
+        {
+            return null;
+        }
+        return FORMATTERS.computeIfAbsent(pattern, DateTimeFormatter::ofPattern);
+    }
+
+    /**
+     * Clean up a raw cell: surrounding whitespace is removed and empty cells become "NaN".
+     * @param cell raw cell from the CSV.
+     * @return cleaned cell.
+     */
+    public static String clean(String cell) {
+        String correctedCell = cell.trim();
+        if(correctedCell.equals(""))
+        {
+            correctedCell = "NaN";
+        }
+        return correctedCell;
+    }
+
+    public static String parseString(String cell) {
+        return clean(cell);
+    }
+
+    public static Integer parseInteger(String cell) {
+        return Integer.parseInt(clean(cell));
+    }
+
+    public static Double parseDouble(String cell) {
+        return Double.parseDouble(clean(cell));
+    }
+
+    /**
+     * Yes/True/1 (any case) are true, anything else is false.
+     */
+    public static Boolean parseBoolean(String cell) {
+        String cleanCell = clean(cell);
+        return cleanCell.equalsIgnoreCase("yes") || cleanCell.equalsIgnoreCase("true") || isIntOne(cleanCell);
+    }
+
+    //same result as Integer.parseInt(cell) == 1, without the exception for non numeric cells
+    private static boolean isIntOne(String cell) {
+        int i = cell.startsWith("+") ? 1 : 0;
+        while(i < cell.length() - 1 && cell.charAt(i) == '0')
+        {
+            i++;
+        }
+        return i == cell.length() - 1 && cell.charAt(i) == '1';
+    }
+
+    /**
+     * @return the trimmed cell, or null if it is empty.
+     */
+    public static String parseNullableString(String cell) {
+        String cleanCell = cell.trim();
+        return cleanCell.isEmpty() ? null : cleanCell;
+    }
+
+    /**
+     * @return the parsed cell, or null if it is empty or not an int.
+     */
+    public static Integer parseNullableInteger(String cell) {
+        String cleanCell = cell.trim();
+        CellClassifier.CellKind kind = classifyNullable(cleanCell);
+        if(kind != CellClassifier.CellKind.INTEGER && kind != CellClassifier.CellKind.ZERO_ONE)
+        {
+            return null;
+        }
+        return Integer.parseInt(cleanCell);
+    }
+
+    /**
+     * @return the parsed cell, or null if it is empty or not a number. "NaN" is a number.
+     */
+    public static Double parseNullableDouble(String cell) {
+        String cleanCell = cell.trim();
+        CellClassifier.CellKind kind = classifyNullable(cleanCell);
+        if(kind != CellClassifier.CellKind.DOUBLE && kind != CellClassifier.CellKind.INTEGER && kind != CellClassifier.CellKind.ZERO_ONE)
+        {
+            return null;
+        }
+        return Double.parseDouble(cleanCell);
+    }
+
+    /**
+     * @return the parsed cell, or null if it is empty or not one of 0,1,True,False,Yes,No (any case).
+     */
+    public static Boolean parseNullableBoolean(String cell) {
+        String cleanCell = cell.trim();
+        CellClassifier.CellKind kind = classifyNullable(cleanCell);
+        if(kind != CellClassifier.CellKind.BOOLEAN_WORD && kind != CellClassifier.CellKind.ZERO_ONE)
+        {
+            return null;
+        }
+        return parseBoolean(cleanCell);
+    }
+
+    //empty cells are missing, CellClassifier expects a non empty cell
+    private static CellClassifier.CellKind classifyNullable(String cleanCell) {
+        return cleanCell.isEmpty() ? CellClassifier.CellKind.STRING : CellClassifier.classify(cleanCell);
+    }
+
+    /**
+     * @return the parsed date, or null if the cell does not match any supported date format.
+     */
+    public static LocalDate parseLocalDate(String cell) {
+        String cleanCell = clean(cell);
+        for(DateTimeFormatter format: DATE_FORMATS)
+        {
+            try
+            {
+                return LocalDate.parse(cleanCell, format);
+            }catch(DateTimeParseException ex)
+            {
+                //try the next format
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parse a date with the format detected for its column, falling back to every supported format for cells that do not match it.
+     * @param format formatter of the column, or null to try every supported format.
+     * @return the parsed date, or null if the cell does not match any supported date format.
+     */
+    public static LocalDate parseLocalDate(String cell, DateTimeFormatter format) {
+        if(format != null)
+        {
+            try
+            {
+                return LocalDate.parse(clean(cell), format);
+            }catch(DateTimeParseException ex)
+            {
+                //not in the column format, try the others
+            }
+        }
+        return parseLocalDate(cell);
+    }
+
+    /**
+     * @return the parsed date and time, or null if the cell does not match any supported date time format.
+     */
+    public static LocalDateTime parseLocalDateTime(String cell) {
+        String cleanCell = clean(cell);
+        try
+        {
+            return LocalDateTime.parse(cleanCell);
+        }catch(DateTimeParseException ex)
+        {
+            try
+            {
+                return LocalDateTime.parse(cleanCell, DATE_TIME_MDY_HM);
+            }catch(DateTimeParseException ex2)
+            {
+                try
+                {
+                    return LocalDateTime.parse(cleanCell, DATE_TIME_MDY_HMS);
+                }catch(DateTimeParseException ex3)
+                {
+                    return null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Parse a date and time with the format detected for its column, falling back to every supported format for cells that do not match it.
+     * @param format formatter of the column, or null to try every supported format.
+     * @return the parsed date and time, or null if the cell does not match any supported date time format.
+     */
+    public static LocalDateTime parseLocalDateTime(String cell, DateTimeFormatter format) {
+        if(format != null)
+        {
+            try
+            {
+                return LocalDateTime.parse(clean(cell), format);
+            }catch(DateTimeParseException ex)
+            {
+                //not in the column format, try the others
+            }
+        }
+        return parseLocalDateTime(cell);
+    }
+}
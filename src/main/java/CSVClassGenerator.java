@@ -0,0 +1,103 @@
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Generates CSV classes ahead of time so that applications do not need to infer datatypes or compile classes at runtime.
+ * Used by the AutomaticCSV Gradle plugin, but can be run from any build tool.
+ *
+ * Usage: CSVClassGenerator outputDirectory [options] csvFile...
+ *
+ * Options:
+ *   --delimeter=,                  delimeter of the csv files.
+ *   --heuristic-typing             type columns from a sample of rows, see setHeuristicTyping().
+ *   --sampling-strategy=FIRST_ROWS SamplingStrategy of the sample.
+ *   --sample-size=100              number of rows sampled.
+ *   --primitive-fields             generate primitive fields, see setPrimitiveFields().
+ *   --off-heap-view                generate a View of readOffHeap() rows, see setOffHeapView().
+ *
+ * Every generated class is marked with @CSVGenerated, and AutoReadCSV uses it as it is when it is on the class path.
+ */
+public class CSVClassGenerator {
+
+    /**
+     * Generate the class of every csv file into the output directory.
+     * @param args output directory, options, then csv files. Options apply to the csv files that follow them.
+     */
+    public static void main(String[] args) {
+        if(args.length < 2)
+        {
+            System.out.println("Usage: CSVClassGenerator outputDirectory [--delimeter=,] [--heuristic-typing] [--sampling-strategy=FIRST_ROWS] [--sample-size=100] [--primitive-fields] [--off-heap-view] csvFile...");
+            System.exit(2);
+        }
+
+        File outputDir = new File(args[0]);
+        if(!outputDir.isDirectory() && !outputDir.mkdirs())
+        {
+            System.out.println(String.format("ERROR: Output directory %s could not be created. ", outputDir));
+            System.exit(1);
+        }
+
+        String delimeter = ",";
+        boolean heuristicTyping = false;
+        SamplingStrategy samplingStrategy = SamplingStrategy.FIRST_ROWS;
+        int sampleSize = 100;
+        boolean primitiveFields = false;
+        boolean offHeapView = false;
+        boolean failed = false;
+
+        for(int i = 1; i < args.length; i++)
+        {
+            String arg = args[i];
+            if(arg.startsWith("--delimeter="))
+            {
+                delimeter = arg.substring("--delimeter=".length());
+            }
+            else if(arg.equals("--heuristic-typing"))
+            {
+                heuristicTyping = true;
+            }
+            else if(arg.startsWith("--sampling-strategy="))
+            {
+                samplingStrategy = SamplingStrategy.valueOf(arg.substring("--sampling-strategy=".length()));
+            }
+            else if(arg.startsWith("--sample-size="))
+            {
+                sampleSize = Integer.parseInt(arg.substring("--sample-size=".length()));
+            }
+            else if(arg.equals("--primitive-fields"))
+            {
+                primitiveFields = true;
+            }
+            else if(arg.equals("--off-heap-view"))
+            {
+                offHeapView = true;
+            }
+            else if(!new File(arg).isFile())
+            {
+                System.out.println(String.format("ERROR: CSV File %s Not Found. ", arg));
+                failed = true;
+            }
+            else
+            {
+                AutoReadCSV rCSV = new AutoReadCSV(arg);
+                rCSV.setDelimeter(delimeter);
+                rCSV.setHeuristicTyping(heuristicTyping);
+                rCSV.setSamplingStrategy(samplingStrategy);
+                rCSV.setSampleSize(sampleSize);
+                rCSV.setPrimitiveFields(primitiveFields);
+                rCSV.setOffHeapView(offHeapView);
+                try {
+                    rCSV.generateCSVClass(outputDir.getPath());
+                } catch (IOException e) {
+                    System.out.println(String.format("ERROR: Failed to generate CSV Class for %s. ", arg));
+                    failed = true;
+                }
+            }
+        }
+
+        if(failed)
+        {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,556 @@
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * One column of a CSV read with readColumnar(), stored in primitive arrays rather than as a field of one object per row.
+ *
+ * Integer and Double columns are int[] and double[], Boolean columns a bitset, LocalDate columns epoch days and LocalDateTime columns
+ * epoch seconds (UTC), and String columns are dictionary encoded. Cells that are empty, or cannot be read as the datatype of the column,
+ * are missing: they are cleared in a validity bitmap and read as 0, false or null.
+ */
+public abstract class CSVColumnVector {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final String name;
+
+    //bit set for every row with a value
+    private long[] validity = new long[INITIAL_CAPACITY / 64];
+
+    private int size = 0;
+
+    private int missingCount = 0;
+
+    CSVColumnVector(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Create the vector for a column, based on its datatype.
+     */
+    static CSVColumnVector forColumn(ColumnCSV column) {
+        String name = column.getColumnName();
+        //primitive datatypes are fields of classes generated with setPrimitiveFields(true)
+        switch(column.getColumnDataType().toString())
+        {
+            case "Integer":
+            case "int":
+                return new IntVector(name);
+            case "Double":
+            case "double":
+                return new DoubleVector(name);
+            case "Boolean":
+            case "boolean":
+                return new BooleanVector(name);
+            case "LocalDate":
+                return new LocalDateVector(name, CSVCellParser.formatter(column.getColumnDateFormat()));
+            case "LocalDateTime":
+                return new LocalDateTimeVector(name, CSVCellParser.formatter(column.getColumnDateFormat()));
+            default:
+                return new StringVector(name);
+        }
+    }
+
+    /**
+     * @return java qualified name of the column, as in the generated class.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return number of rows.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isMissing(int row) {
+        checkRow(row);
+        return (validity[row >>> 6] & (1L << row)) == 0;
+    }
+
+    /**
+     * @return number of rows without a value.
+     */
+    public int getMissingCount() {
+        return missingCount;
+    }
+
+    /**
+     * @return the value of a row as its datatype (ex: Integer, LocalDate), or null if it is missing.
+     */
+    public abstract Object getObject(int row);
+
+    /**
+     * Append the next cell of the column.
+     * @param cell raw cell, or null if the row has no cell for this column.
+     */
+    void append(String cell) {
+        if(size == capacity())
+        {
+            int newCapacity = Math.max(INITIAL_CAPACITY, capacity() * 2);
+            grow(newCapacity);
+            validity = Arrays.copyOf(validity, (newCapacity + 63) / 64);
+        }
+        String trimmed = cell == null ? "" : cell.trim();
+        if(!trimmed.isEmpty() && set(size, trimmed))
+        {
+            validity[size >>> 6] |= 1L << size;
+        }
+        else
+        {
+            missingCount++;
+        }
+        size++;
+    }
+
+    /**
+     * Release the unused capacity once every row has been appended.
+     */
+    void trim() {
+        grow(size);
+        validity = Arrays.copyOf(validity, (size + 63) / 64);
+    }
+
+    /**
+     * @return number of rows the value arrays can hold.
+     */
+    abstract int capacity();
+
+    /**
+     * Resize the value arrays.
+     */
+    abstract void grow(int newCapacity);
+
+    /**
+     * Store the value of a trimmed, non empty cell.
+     * @return false if the cell cannot be read as the datatype of the column.
+     */
+    abstract boolean set(int row, String cell);
+
+    void checkRow(int row) {
+        if(row < 0 || row >= size)
+        {
+            throw new IndexOutOfBoundsException(String.format("Row %d of column %s with %d rows. ", row, name, size));
+        }
+    }
+
+    /**
+     * Integer column.
+     */
+    public static final class IntVector extends CSVColumnVector {
+
+        private int[] values = new int[0];
+
+        IntVector(String name) {
+            super(name);
+        }
+
+        /**
+         * @return the value of the row, 0 if it is missing.
+         */
+        public int get(int row) {
+            checkRow(row);
+            return values[row];
+        }
+
+        /**
+         * @return the values of every row, 0 for missing rows. The array is not copied.
+         */
+        public int[] values() {
+            return values;
+        }
+
+        /**
+         * @return sum of the values of every row with a value.
+         */
+        public long sum() {
+            long sum = 0;
+            for(int value: values)
+            {
+                sum += value; //missing rows are 0
+            }
+            return sum;
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return isMissing(row) ? null : values[row];
+        }
+
+        @Override
+        int capacity() {
+            return values.length;
+        }
+
+        @Override
+        void grow(int newCapacity) {
+            values = Arrays.copyOf(values, newCapacity);
+        }
+
+        @Override
+        boolean set(int row, String cell) {
+            CellClassifier.CellKind kind = CellClassifier.classify(cell);
+            if(kind != CellClassifier.CellKind.INTEGER && kind != CellClassifier.CellKind.ZERO_ONE)
+            {
+                return false;
+            }
+            values[row] = Integer.parseInt(cell);
+            return true;
+        }
+    }
+
+    /**
+     * Double column.
+     */
+    public static final class DoubleVector extends CSVColumnVector {
+
+        private double[] values = new double[0];
+
+        DoubleVector(String name) {
+            super(name);
+        }
+
+        /**
+         * @return the value of the row, 0 if it is missing.
+         */
+        public double get(int row) {
+            checkRow(row);
+            return values[row];
+        }
+
+        /**
+         * @return the values of every row, 0 for missing rows. The array is not copied.
+         */
+        public double[] values() {
+            return values;
+        }
+
+        /**
+         * @return sum of the values of every row with a value.
+         */
+        public double sum() {
+            double sum = 0;
+            for(double value: values)
+            {
+                sum += value; //missing rows are 0
+            }
+            return sum;
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return isMissing(row) ? null : values[row];
+        }
+
+        @Override
+        int capacity() {
+            return values.length;
+        }
+
+        @Override
+        void grow(int newCapacity) {
+            values = Arrays.copyOf(values, newCapacity);
+        }
+
+        @Override
+        boolean set(int row, String cell) {
+            CellClassifier.CellKind kind = CellClassifier.classify(cell);
+            if(kind != CellClassifier.CellKind.DOUBLE && kind != CellClassifier.CellKind.INTEGER && kind != CellClassifier.CellKind.ZERO_ONE)
+            {
+                return false;
+            }
+            values[row] = Double.parseDouble(cell);
+            return true;
+        }
+    }
+
+    /**
+     * Boolean column, one bit per row.
+     */
+    public static final class BooleanVector extends CSVColumnVector {
+
+        private long[] bits = new long[0];
+
+        private int capacity = 0;
+
+        BooleanVector(String name) {
+            super(name);
+        }
+
+        /**
+         * @return the value of the row, false if it is missing.
+         */
+        public boolean get(int row) {
+            checkRow(row);
+            return (bits[row >>> 6] & (1L << row)) != 0;
+        }
+
+        /**
+         * @return number of rows that are true.
+         */
+        public int countTrue() {
+            int count = 0;
+            for(long word: bits)
+            {
+                count += Long.bitCount(word);
+            }
+            return count;
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return isMissing(row) ? null : get(row);
+        }
+
+        @Override
+        int capacity() {
+            return capacity;
+        }
+
+        @Override
+        void grow(int newCapacity) {
+            bits = Arrays.copyOf(bits, (newCapacity + 63) / 64);
+            capacity = newCapacity;
+        }
+
+        @Override
+        boolean set(int row, String cell) {
+            CellClassifier.CellKind kind = CellClassifier.classify(cell);
+            if(kind != CellClassifier.CellKind.BOOLEAN_WORD && kind != CellClassifier.CellKind.ZERO_ONE)
+            {
+                return false;
+            }
+            if(CSVCellParser.parseBoolean(cell))
+            {
+                bits[row >>> 6] |= 1L << row;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * LocalDate column, stored as days since 1970-01-01.
+     */
+    public static final class LocalDateVector extends CSVColumnVector {
+
+        private final DateTimeFormatter format;
+
+        private int[] epochDays = new int[0];
+
+        LocalDateVector(String name, DateTimeFormatter format) {
+            super(name);
+            this.format = format;
+        }
+
+        /**
+         * @return the date of the row, null if it is missing.
+         */
+        public LocalDate get(int row) {
+            return isMissing(row) ? null : LocalDate.ofEpochDay(epochDays[row]);
+        }
+
+        /**
+         * @return days since 1970-01-01 of the row, 0 if it is missing.
+         */
+        public int getEpochDay(int row) {
+            checkRow(row);
+            return epochDays[row];
+        }
+
+        /**
+         * @return days since 1970-01-01 of every row, 0 for missing rows. The array is not copied.
+         */
+        public int[] epochDays() {
+            return epochDays;
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return get(row);
+        }
+
+        @Override
+        int capacity() {
+            return epochDays.length;
+        }
+
+        @Override
+        void grow(int newCapacity) {
+            epochDays = Arrays.copyOf(epochDays, newCapacity);
+        }
+
+        @Override
+        boolean set(int row, String cell) {
+            LocalDate date = CSVCellParser.parseLocalDate(cell, format);
+            if(date == null || date.toEpochDay() != (int) date.toEpochDay())
+            {
+                return false;
+            }
+            epochDays[row] = (int) date.toEpochDay();
+            return true;
+        }
+    }
+
+    /**
+     * LocalDateTime column, stored as seconds since 1970-01-01T00:00 UTC. Fractions of a second are kept only if a cell has one.
+     */
+    public static final class LocalDateTimeVector extends CSVColumnVector {
+
+        private final DateTimeFormatter format;
+
+        private long[] epochSeconds = new long[0];
+
+        //allocated for the first cell with a fraction of a second
+        private int[] nanos;
+
+        LocalDateTimeVector(String name, DateTimeFormatter format) {
+            super(name);
+            this.format = format;
+        }
+
+        /**
+         * @return the date and time of the row, null if it is missing.
+         */
+        public LocalDateTime get(int row) {
+            if(isMissing(row))
+            {
+                return null;
+            }
+            return LocalDateTime.ofEpochSecond(epochSeconds[row], nanos == null ? 0 : nanos[row], ZoneOffset.UTC);
+        }
+
+        /**
+         * @return seconds since 1970-01-01T00:00 of the row, 0 if it is missing.
+         */
+        public long getEpochSecond(int row) {
+            checkRow(row);
+            return epochSeconds[row];
+        }
+
+        /**
+         * @return seconds since 1970-01-01T00:00 of every row, 0 for missing rows. The array is not copied.
+         */
+        public long[] epochSeconds() {
+            return epochSeconds;
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return get(row);
+        }
+
+        @Override
+        int capacity() {
+            return epochSeconds.length;
+        }
+
+        @Override
+        void grow(int newCapacity) {
+            epochSeconds = Arrays.copyOf(epochSeconds, newCapacity);
+            if(nanos != null)
+            {
+                nanos = Arrays.copyOf(nanos, newCapacity);
+            }
+        }
+
+        @Override
+        boolean set(int row, String cell) {
+            LocalDateTime dateTime = CSVCellParser.parseLocalDateTime(cell, format);
+            if(dateTime == null)
+            {
+                return false;
+            }
+            epochSeconds[row] = dateTime.toEpochSecond(ZoneOffset.UTC);
+            if(dateTime.getNano() != 0)
+            {
+                if(nanos == null)
+                {
+                    nanos = new int[epochSeconds.length];
+                }
+                nanos[row] = dateTime.getNano();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * String column, stored as a code per row into a dictionary of the distinct values.
+     */
+    public static final class StringVector extends CSVColumnVector {
+
+        private final HashMap<String, Integer> codes = new HashMap<>();
+
+        private String[] dictionary = new String[16];
+
+        private int[] rowCodes = new int[0];
+
+        StringVector(String name) {
+            super(name);
+        }
+
+        /**
+         * @return the value of the row, null if it is missing.
+         */
+        public String get(int row) {
+            return isMissing(row) ? null : dictionary[rowCodes[row]];
+        }
+
+        /**
+         * @return index of the value of the row in getDictionary(), -1 if it is missing.
+         */
+        public int getCode(int row) {
+            return isMissing(row) ? -1 : rowCodes[row];
+        }
+
+        /**
+         * @return the distinct values of the column, in order of first appearance.
+         */
+        public String[] getDictionary() {
+            return Arrays.copyOf(dictionary, codes.size());
+        }
+
+        @Override
+        public Object getObject(int row) {
+            return get(row);
+        }
+
+        @Override
+        int capacity() {
+            return rowCodes.length;
+        }
+
+        @Override
+        void grow(int newCapacity) {
+            rowCodes = Arrays.copyOf(rowCodes, newCapacity);
+        }
+
+        @Override
+        void trim() {
+            super.trim();
+            dictionary = Arrays.copyOf(dictionary, codes.size());
+        }
+
+        @Override
+        boolean set(int row, String cell) {
+            Integer code = codes.get(cell);
+            if(code == null)
+            {
+                code = codes.size();
+                if(code == dictionary.length)
+                {
+                    dictionary = Arrays.copyOf(dictionary, dictionary.length * 2);
+                }
+                dictionary[code] = cell;
+                codes.put(cell, code);
+            }
+            rowCodes[row] = code;
+            return true;
+        }
+    }
+}
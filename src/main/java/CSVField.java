@@ -7,4 +7,15 @@ import java.lang.annotation.Target;
 @Target(ElementType.FIELD)
 public @interface CSVField {
 
+    /**
+     * DateTimeFormatter pattern detected for LocalDate and LocalDateTime fields when the class was generated, ex: "M/d/yyyy".
+     * Cells are parsed with this pattern first. Empty for other datatypes, or to try every supported format.
+     */
+    String format() default "";
+
+    /**
+     * True for fields of classes generated with primitive fields, see setPrimitiveFields(). Empty cells, and cells that are not of the
+     * field datatype, are passed to the @CSVConstructor as null and recorded as missing, rather than read as "NaN" or failing the read.
+     */
+    boolean nullable() default false;
 }
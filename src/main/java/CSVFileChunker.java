@@ -0,0 +1,202 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.stream.IntStream;
+
+/**
+ * Splits a local CSV file into byte ranges that begin and end on record boundaries so that the ranges can be
+ * tokenized independently and in parallel.
+ *
+ * Quoted line breaks are respected with the quote rule of CSVTokenizer, through a CSVRecordScanner. Whether a position is inside a quoted
+ * field depends on every byte before it, so the state at the end of each range is computed in parallel for every state the range could
+ * start in, and the states at the boundaries are then chained from the start of the file. The file is only scanned once before parsing.
+ */
+final class CSVFileChunker {
+
+    /**
+     * Smallest range worth handing to its own task.
+     */
+    private static final long MIN_CHUNK_SIZE = 1024 * 1024;
+
+    /**
+     * Largest range mapped at once. Keeps every mapping well below the 2GB limit of a MappedByteBuffer.
+     */
+    private static final long MAX_CHUNK_SIZE = 256L * 1024 * 1024;
+
+    private CSVFileChunker() {}
+
+    /**
+     * Compute the byte ranges of the data records in a file, skipping the header record.
+     * @param channel channel of the CSV file.
+     * @param scanner scanner of the delimiter of the file.
+     * @return array of range start offsets followed by the file size, ex: {s0, s1, s2, size}. Range i is [r[i], r[i+1]).
+     * @throws IOException if the file cannot be mapped.
+     */
+    static long[] split(FileChannel channel, CSVRecordScanner scanner) throws IOException {
+        long size = channel.size();
+        long dataStart = recordEnd(channel, 0, CSVRecordScanner.LINE_START, size, scanner);
+
+        long dataSize = size - dataStart;
+        int chunks = (int) Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() * 4L, dataSize / MIN_CHUNK_SIZE));
+        chunks = (int) Math.max(chunks, (dataSize + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+
+        long[] nominal = new long[chunks + 1];
+        for(int i = 0; i <= chunks; i++)
+        {
+            nominal[i] = dataStart + dataSize * i / chunks;
+        }
+
+        //scan every nominal range in parallel, for every state it could start in
+        int[][] endStates = IntStream.range(0, chunks).parallel().mapToObj(i -> {
+            try {
+                return scanner.endStates(map(channel, nominal[i], nominal[i + 1]));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }).toArray(int[][]::new);
+
+        //move every nominal boundary forward to the end of the record it falls in
+        long[] boundaries = new long[chunks + 1];
+        boundaries[0] = dataStart;
+        int state = CSVRecordScanner.LINE_START;
+        for(int i = 1; i < chunks; i++)
+        {
+            state = endStates[i - 1][state];
+            long boundary = recordEnd(channel, nominal[i], state, size, scanner);
+            boundaries[i] = Math.max(boundary, boundaries[i - 1]);
+        }
+        boundaries[chunks] = size;
+
+        //drop empty ranges
+        ArrayList<Long> ranges = new ArrayList<>();
+        for(int i = 0; i < chunks; i++)
+        {
+            if(boundaries[i] < boundaries[i + 1])
+            {
+                ranges.add(boundaries[i]);
+            }
+        }
+        long[] result = new long[ranges.size() + 1];
+        for(int i = 0; i < ranges.size(); i++)
+        {
+            result[i] = ranges.get(i);
+        }
+        result[ranges.size()] = size;
+        return result;
+    }
+
+    /**
+     * Compute byte ranges of data records from the record offsets of a CSVRowIndex, without scanning the file. Ranges are cut at the
+     * indexed record closest to every nominal boundary, so they are as even as the index interval allows.
+     * @param recordOffsets offsets of indexed records in file order, the first being the first data record.
+     * @param size size of the file.
+     * @return array of range start offsets followed by the file size, as for split(FileChannel, CSVRecordScanner).
+     */
+    static long[] split(long[] recordOffsets, long size) {
+        if(recordOffsets.length == 0)
+        {
+            return new long[]{size};
+        }
+        long dataStart = recordOffsets[0];
+        long dataSize = size - dataStart;
+        int chunks = (int) Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() * 4L, dataSize / MIN_CHUNK_SIZE));
+        chunks = (int) Math.max(chunks, (dataSize + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+        long target = Math.max(1, dataSize / chunks);
+
+        ArrayList<Long> ranges = new ArrayList<>();
+        ranges.add(dataStart);
+        for(long offset: recordOffsets)
+        {
+            if(offset - ranges.get(ranges.size() - 1) >= target)
+            {
+                ranges.add(offset);
+            }
+        }
+        long[] result = new long[ranges.size() + 1];
+        for(int i = 0; i < ranges.size(); i++)
+        {
+            result[i] = ranges.get(i);
+        }
+        result[ranges.size()] = size;
+        return result;
+    }
+
+    /**
+     * Map a range of the file read-only.
+     */
+    static MappedByteBuffer map(FileChannel channel, long start, long end) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+    }
+
+    /**
+     * Find the offset just past the end of the record containing position.
+     * @param state state of the scanner at position, ex: CSVRecordScanner.LINE_START at the start of a record.
+     * @return offset of the first byte of the next record, or limit if the record runs to the end of the file.
+     */
+    static long recordEnd(FileChannel channel, long position, int state, long limit, CSVRecordScanner scanner) throws IOException {
+        long windowStart = position;
+        while(windowStart < limit)
+        {
+            long windowEnd = Math.min(limit, windowStart + MIN_CHUNK_SIZE);
+            MappedByteBuffer window = map(channel, windowStart, windowEnd);
+            int length = window.limit();
+            for(int i = 0; i < length; i++)
+            {
+                byte b = window.get(i);
+                int next = scanner.next(state, b);
+                if(next == CSVRecordScanner.LINE_START && state != CSVRecordScanner.LINE_START)
+                {
+                    long end = windowStart + i + 1;
+                    //keep \r\n together
+                    if(b == '\r' && end < limit)
+                    {
+                        boolean lf = i + 1 < length ? window.get(i + 1) == '\n' : map(channel, end, end + 1).get(0) == '\n';
+                        if(lf)
+                        {
+                            end++;
+                        }
+                    }
+                    return end;
+                }
+                state = next;
+            }
+            windowStart = windowEnd;
+        }
+        return limit;
+    }
+
+    /**
+     * InputStream view of a ByteBuffer so a mapped range can be decoded by an InputStreamReader.
+     */
+    static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if(!buffer.hasRemaining())
+            {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
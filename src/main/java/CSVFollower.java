@@ -0,0 +1,430 @@
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Follows a CSV file that is appended to, like tail -f, for AutoReadCSV.followCSV(). Opened with followCSV(), and closed with close(),
+ * ex: in a try-with-resources.
+ *
+ * The follower keeps the byte offset just after the last complete record it has read. Every poll reads only the bytes appended since,
+ * up to the end of the last complete record, and converts those records into objects of the CSV class. A record still being written is
+ * left for the next poll. The time of a poll depends on the size of the appended rows, not on the size of the file.
+ *
+ * Changes to the file are noticed with a WatchService on its directory, and at least every followPollMillis on file systems where events
+ * are not delivered. A file that becomes shorter than the offset was truncated, and is read again from its header. A file whose path now
+ * leads to a different file (the file key changed, ex: logrotate moved it away and created a new one) was rotated: the rows left in the
+ * old file are read, then the new file is followed from its header.
+ * @param <T> class of the rows, a CSV class.
+ */
+public final class CSVFollower<T> implements AutoCloseable {
+
+    //bytes read from the file at once
+    private static final int READ_BYTES = 64 * 1024;
+
+    //most bytes of records parsed at once, a longer run of appended records is parsed in batches
+    private static final long BATCH_BYTES = 16L * 1024 * 1024;
+
+    private final Path path;
+
+    private final String delimeter;
+
+    private final CSVRecordScanner scanner;
+
+    //row mapper bound to a header row
+    private final Function<String[], CSVRowMapper<T>> mappers;
+
+    private final long pollMillis;
+
+    //rows found by the follow thread are handed to it, null if the rows are polled or streamed
+    private final Consumer<? super T> onRow;
+
+    private final WatchService watcher;
+
+    private FileChannel channel;
+
+    //identity of the open file, to notice rotation
+    private Object fileKey;
+
+    //null until the header of the open file has been read
+    private CSVRowMapper<T> mapper;
+
+    //start of the first record not read yet
+    private long offset = 0;
+
+    //skip the records already in the file when its header is read
+    private boolean skipExisting;
+
+    private Thread followThread;
+
+    private volatile boolean closed = false;
+
+    /**
+     * @param mappers creates the row mapper of the CSV class for a header row.
+     * @param fromStart read the records already in the file, otherwise only records appended after the follower was opened.
+     * @param pollMillis longest time between two polls of the follow thread or a stream.
+     * @param onRow callback of the follow thread, null to poll() or stream() instead.
+     */
+    CSVFollower(Path path, String delimeter, Function<String[], CSVRowMapper<T>> mappers, boolean fromStart, long pollMillis,
+                Consumer<? super T> onRow) {
+        this.path = path.toAbsolutePath();
+        this.delimeter = delimeter;
+        this.scanner = new CSVRecordScanner(delimeter);
+        this.mappers = mappers;
+        this.pollMillis = Math.max(1, pollMillis);
+        this.onRow = onRow;
+        this.skipExisting = !fromStart;
+        this.watcher = watch(this.path);
+    }
+
+    /**
+     * Start the follow thread, which polls the file and hands every new row to onRow until the follower is closed.
+     */
+    void start() {
+        followThread = new Thread(this::follow, "automaticcsv-follow");
+        followThread.setDaemon(true);
+        followThread.start();
+    }
+
+    /**
+     * Read the records appended since the last poll, without waiting. Used when the follower has no callback.
+     * @return the new rows in file order, empty if no complete record was appended.
+     * @throws IOException if the file cannot be read.
+     */
+    public synchronized List<T> poll() throws IOException {
+        if(closed)
+        {
+            throw new IOException("CSV follower is closed. ");
+        }
+        ArrayList<T> rows = new ArrayList<>();
+        if(channel == null && !open())
+        {
+            return rows;
+        }
+
+        if(rotated())
+        {
+            //rows written to the old file before it was moved away
+            readAppended(rows);
+            channel.close();
+            channel = null;
+            if(!open())
+            {
+                return rows;
+            }
+        }
+
+        if(channel.size() < offset)
+        {
+            //truncated, read again from the header
+            mapper = null;
+            offset = 0;
+        }
+        readAppended(rows);
+        return rows;
+    }
+
+    /**
+     * Rows of the file as they are appended. The stream blocks until the next row is appended and ends when the follower is closed, so it
+     * is usually consumed by its own thread, ex: with forEach(). Not available when the follower has a callback.
+     * @return Stream of new rows, in file order.
+     */
+    public Stream<T> stream() {
+        if(onRow != null)
+        {
+            throw new IllegalStateException("Rows of this CSV follower are handed to its callback. ");
+        }
+        ArrayDeque<T> buffered = new ArrayDeque<>();
+        Spliterator<T> rows = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                while(buffered.isEmpty())
+                {
+                    if(closed)
+                    {
+                        return false;
+                    }
+                    try {
+                        buffered.addAll(poll());
+                    } catch (IOException | RuntimeException e) {
+                        if(closed)
+                        {
+                            return false;
+                        }
+                        System.out.println(String.format("ERROR: Failed to read appended CSV rows. %s", e));
+                    }
+                    if(buffered.isEmpty())
+                    {
+                        awaitChange();
+                    }
+                }
+                action.accept(buffered.poll());
+                return true;
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(this::close);
+    }
+
+    /**
+     * Stop following the file. The follow thread stops after the rows it is handing to the callback, and streams end.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if(watcher != null)
+        {
+            try {
+                watcher.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        if(followThread != null && followThread != Thread.currentThread())
+        {
+            followThread.interrupt();
+        }
+        synchronized(this)
+        {
+            if(channel != null)
+            {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                channel = null;
+            }
+        }
+    }
+
+    private void follow() {
+        while(!closed)
+        {
+            List<T> rows;
+            try {
+                rows = poll();
+            } catch (IOException | RuntimeException e) {
+                if(closed)
+                {
+                    return;
+                }
+                System.out.println(String.format("ERROR: Failed to read appended CSV rows. %s", e));
+                rows = new ArrayList<>();
+            }
+            for(T row: rows)
+            {
+                try {
+                    onRow.accept(row);
+                } catch (RuntimeException e) {
+                    System.out.println("ERROR: Callback of the CSV follower failed. ");
+                    e.printStackTrace();
+                }
+            }
+            if(rows.isEmpty())
+            {
+                awaitChange();
+            }
+        }
+    }
+
+    /**
+     * Wait until the directory of the file changes, or at most pollMillis.
+     */
+    private void awaitChange() {
+        try {
+            if(watcher == null)
+            {
+                Thread.sleep(pollMillis);
+                return;
+            }
+            WatchKey key = watcher.poll(pollMillis, TimeUnit.MILLISECONDS);
+            if(key != null)
+            {
+                key.pollEvents();
+                key.reset();
+            }
+        } catch (InterruptedException e) {
+            if(!closed)
+            {
+                Thread.currentThread().interrupt();
+            }
+        } catch (ClosedWatchServiceException e) {
+            //closed while waiting
+        }
+    }
+
+    private static WatchService watch(Path path) {
+        Path directory = path.getParent();
+        if(directory == null)
+        {
+            return null;
+        }
+        try {
+            WatchService watcher = FileSystems.getDefault().newWatchService();
+            directory.register(watcher, new WatchEvent.Kind<?>[]{StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY});
+            return watcher;
+        } catch (IOException | UnsupportedOperationException e) {
+            //polled every pollMillis instead
+            return null;
+        }
+    }
+
+    /**
+     * Open the file at the path, to be read from its header.
+     * @return false if there is no file at the path yet.
+     */
+    private boolean open() throws IOException {
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        fileKey = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+        mapper = null;
+        offset = 0;
+        return true;
+    }
+
+    /**
+     * @return true if the path leads to another file than the open one. Files without a key are only followed through truncation.
+     */
+    private boolean rotated() throws IOException {
+        if(fileKey == null)
+        {
+            return false;
+        }
+        try {
+            return !fileKey.equals(Files.readAttributes(path, BasicFileAttributes.class).fileKey());
+        } catch (NoSuchFileException e) {
+            //moved away, the new file is not there yet
+            return false;
+        }
+    }
+
+    /**
+     * Parse the complete records between the offset and the end of the open file into rows, starting with the header if it has not been
+     * read yet.
+     */
+    private void readAppended(List<T> rows) throws IOException {
+        long size = channel.size();
+        if(mapper == null)
+        {
+            long headerEnd = recordEnd(0, size, true);
+            if(headerEnd < 0)
+            {
+                return;
+            }
+            String[] headerRow = tokenizer(0, headerEnd).nextRecord();
+            mapper = mappers.apply(headerRow == null ? new String[0] : headerRow);
+            offset = headerEnd;
+            if(skipExisting)
+            {
+                offset = Math.max(offset, recordEnd(offset, size, false));
+            }
+        }
+        skipExisting = false;
+
+        while(offset < size)
+        {
+            long end = recordEnd(offset, Math.min(size, offset + BATCH_BYTES), false);
+            if(end < 0)
+            {
+                //one record longer than a batch, or no complete record yet
+                end = offset + BATCH_BYTES < size ? recordEnd(offset, size, false) : -1;
+                if(end < 0)
+                {
+                    return;
+                }
+            }
+            CSVTokenizer tokenizer = tokenizer(offset, end);
+            String[] row;
+            while((row = tokenizer.nextRecord()) != null)
+            {
+                //a bad record is skipped, rather than read again by every later poll
+                try {
+                    rows.add(mapper.mapRow(row));
+                } catch (RuntimeException e) {
+                    System.out.println(String.format("ERROR: Skipped appended CSV row %s. %s", Arrays.toString(row), e));
+                }
+            }
+            offset = end;
+        }
+    }
+
+    /**
+     * Find the end of a record with the quote rule of CSVTokenizer (see CSVRecordScanner), from from, which must be the start of a record.
+     * @return position just after the first (or last) record ending in [from, to), or -1 if there is none.
+     */
+    private long recordEnd(long from, long to, boolean first) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BYTES);
+        int state = CSVRecordScanner.LINE_START;
+        long end = -1;
+        long position = from;
+        while(position < to)
+        {
+            buffer.clear();
+            buffer.limit((int) Math.min(READ_BYTES, to - position));
+            int read = channel.read(buffer, position);
+            if(read <= 0)
+            {
+                break;
+            }
+            for(int i = 0; i < read; i++)
+            {
+                byte b = buffer.get(i);
+                int next = scanner.next(state, b);
+                if(next == CSVRecordScanner.LINE_START && state != CSVRecordScanner.LINE_START)
+                {
+                    end = position + i + 1;
+                    //keep \r\n together, a \n read later is a blank line
+                    if(b == '\r' && i + 1 < read && buffer.get(i + 1) == '\n')
+                    {
+                        end++;
+                    }
+                    if(first)
+                    {
+                        return end;
+                    }
+                }
+                state = next;
+            }
+            position += read;
+        }
+        return end;
+    }
+
+    private CSVTokenizer tokenizer(long from, long to) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate((int) (to - from));
+        while(bytes.hasRemaining())
+        {
+            if(channel.read(bytes, from + bytes.position()) < 0)
+            {
+                break;
+            }
+        }
+        return new CSVTokenizer(new InputStreamReader(new ByteArrayInputStream(bytes.array(), 0, bytes.position())), delimeter);
+    }
+}
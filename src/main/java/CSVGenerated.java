@@ -0,0 +1,13 @@
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a CSV class generated at build time, ex: by the AutomaticCSV Gradle plugin. AutoReadCSV uses these classes as they are
+ * without looking for their source in the source directory.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface CSVGenerated {
+}
@@ -0,0 +1,248 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Writes a list of objects to one CSV file per value of a @CSVField, in a single pass over the list, for
+ * AutoWriteCSV.writePartitionedCSV().
+ *
+ * The list is split into ranges of rows. Each range is routed and encoded on its own, into one buffer per partition found in the range,
+ * on the fork-join pool when writing in parallel. Ranges are then written in order, so the rows of every partition keep the order of the
+ * list. At most maxOpenPartitions files are open at once: the least recently written is closed when another is needed, and reopened in
+ * append mode if it comes up again.
+ */
+final class CSVPartitionWriter {
+
+    private static final int ROWS_PER_RANGE = 4096;
+
+    private final File csvFileObject;
+
+    private final CSVRowWriter rowWriter;
+
+    private final Function<Object, String> partitionKey;
+
+    private final boolean append;
+
+    private final boolean forceOnFlush;
+
+    private final boolean parallel;
+
+    private final int maxOpenPartitions;
+
+    //same charset as the OutputStreamWriter of a sequential write
+    private final Charset charset = Charset.defaultCharset();
+
+    private final ByteBuffer header;
+
+    private final boolean gzip;
+
+    //open files, least recently written first
+    private final LinkedHashMap<String, PartitionFile> open = new LinkedHashMap<>(16, 0.75f, true);
+
+    //file of every partition written so far, in order of first appearance
+    private final LinkedHashMap<String, File> files = new LinkedHashMap<>();
+
+    private final Set<String> fileNames = new HashSet<>();
+
+    /**
+     * @param csvFileObject file name the partition files are named after, ex: sales.csv is split into sales-2021.csv, sales-2022.csv...
+     * @param partitionField @CSVField whose value selects the file of each row.
+     */
+    CSVPartitionWriter(File csvFileObject, Class<?> CSVClass, String partitionField, boolean append, boolean forceOnFlush, boolean parallel,
+                       int maxOpenPartitions) {
+        this.csvFileObject = csvFileObject;
+        this.rowWriter = CSVRowWriter.forClass(CSVClass);
+        this.partitionKey = rowWriter.partitionKey(CSVClass, partitionField);
+        this.append = append;
+        this.forceOnFlush = forceOnFlush;
+        this.parallel = parallel;
+        this.maxOpenPartitions = Math.max(1, maxOpenPartitions);
+        this.gzip = AutoWriteCSV.isGzip(csvFileObject);
+
+        StringBuilder headerLine = new StringBuilder();
+        rowWriter.writeHeader(headerLine);
+        this.header = AutoWriteCSV.encode(charset, headerLine);
+    }
+
+    /**
+     * @return the file of every partition, by partition value.
+     */
+    Map<String, File> write(ArrayList<?> objectsToWrite) throws IOException {
+        int ranges = (objectsToWrite.size() + ROWS_PER_RANGE - 1) / ROWS_PER_RANGE;
+        int rangesPerWave = parallel ? ForkJoinPool.getCommonPoolParallelism() * 4 : 1;
+
+        try {
+            CompletableFuture<ArrayList<Map<String, ByteBuffer>>> wave = encodeWave(objectsToWrite, 0, Math.min(ranges, rangesPerWave));
+            for(int first = 0; first < ranges; first += rangesPerWave)
+            {
+                ArrayList<Map<String, ByteBuffer>> encoded = AutoWriteCSV.join(wave);
+
+                int next = first + rangesPerWave;
+                if(next < ranges)
+                {
+                    wave = encodeWave(objectsToWrite, next, Math.min(ranges, next + rangesPerWave));
+                }
+
+                for(Map<String, ByteBuffer> range: encoded)
+                {
+                    for(Map.Entry<String, ByteBuffer> partition: range.entrySet())
+                    {
+                        partitionFile(partition.getKey()).write(partition.getValue());
+                    }
+                }
+            }
+        } finally {
+            while(!open.isEmpty())
+            {
+                closeLeastRecent();
+            }
+        }
+        return files;
+    }
+
+    private CompletableFuture<ArrayList<Map<String, ByteBuffer>>> encodeWave(ArrayList<?> objectsToWrite, int firstRange, int endRange) {
+        IntStream wave = parallel ? IntStream.range(firstRange, endRange).parallel() : IntStream.range(firstRange, endRange);
+        return CompletableFuture.supplyAsync(() -> wave.mapToObj(range -> encodeRange(objectsToWrite, range))
+                .collect(ArrayList::new, ArrayList::add, ArrayList::addAll));
+    }
+
+    //rows of one range, routed to a buffer per partition and encoded
+    private Map<String, ByteBuffer> encodeRange(ArrayList<?> objectsToWrite, int range) {
+        int from = range * ROWS_PER_RANGE;
+        int to = Math.min(objectsToWrite.size(), from + ROWS_PER_RANGE);
+        LinkedHashMap<String, StringBuilder> partitions = new LinkedHashMap<>();
+        for(int i = from; i < to; i++)
+        {
+            Object row = objectsToWrite.get(i);
+            rowWriter.writeRow(row, partitions.computeIfAbsent(partitionKey.apply(row), key -> new StringBuilder()));
+        }
+
+        LinkedHashMap<String, ByteBuffer> encoded = new LinkedHashMap<>();
+        for(Map.Entry<String, StringBuilder> partition: partitions.entrySet())
+        {
+            encoded.put(partition.getKey(), AutoWriteCSV.encode(charset, partition.getValue()));
+        }
+        return encoded;
+    }
+
+    /**
+     * Open file of a partition, opening it (and closing the least recently written file) if needed. A partition opened for the first time
+     * starts its file with the header, unless it is appended to a file that already has one.
+     */
+    private PartitionFile partitionFile(String partition) throws IOException {
+        PartitionFile partitionFile = open.get(partition);
+        if(partitionFile != null)
+        {
+            return partitionFile;
+        }
+        if(open.size() >= maxOpenPartitions)
+        {
+            closeLeastRecent();
+        }
+
+        File file = files.get(partition);
+        boolean firstOpen = file == null;
+        if(firstOpen)
+        {
+            file = fileOf(partition);
+            files.put(partition, file);
+        }
+
+        boolean truncate = firstOpen && !append;
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                truncate ? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.APPEND);
+        boolean writeHeader = firstOpen && channel.size() == 0;
+        partitionFile = new PartitionFile(channel, gzip);
+        open.put(partition, partitionFile);
+        if(writeHeader)
+        {
+            partitionFile.write(header.duplicate());
+        }
+        return partitionFile;
+    }
+
+    private void closeLeastRecent() throws IOException {
+        Iterator<PartitionFile> leastRecent = open.values().iterator();
+        PartitionFile partitionFile = leastRecent.next();
+        leastRecent.remove();
+        partitionFile.close(forceOnFlush);
+    }
+
+    /**
+     * File of a partition next to csvFileObject, ex: sales-2021.csv. Runs of characters that are not safe in file names are replaced by '_',
+     * and a number is added if two partitions end up with the same name.
+     */
+    private File fileOf(String partition) {
+        String name = csvFileObject.getName();
+        //compound extensions stay together, ex: sales-2021.csv.gz
+        String compressed = gzip ? name.substring(name.length() - ".gz".length()) : "";
+        String plain = name.substring(0, name.length() - compressed.length());
+        int extension = plain.lastIndexOf('.');
+        String base = extension > 0 ? plain.substring(0, extension) : plain;
+        String suffix = (extension > 0 ? plain.substring(extension) : "") + compressed;
+
+        String safePartition = partition.isEmpty() ? "missing" : partition.replaceAll("[^A-Za-z0-9._-]+", "_");
+        String fileName = base + "-" + safePartition + suffix;
+        for(int i = 2; !fileNames.add(fileName); i++)
+        {
+            fileName = base + "-" + safePartition + "-" + i + suffix;
+        }
+        return new File(csvFileObject.getParentFile(), fileName);
+    }
+
+    /**
+     * An open partition file. Compressed files get a new gzip member every time they are reopened, which gzip readers read as one file.
+     */
+    private static final class PartitionFile {
+
+        private final FileChannel channel;
+
+        private final ParallelGzipOutputStream gzip;
+
+        PartitionFile(FileChannel channel, boolean gzip) throws IOException {
+            this.channel = channel;
+            this.gzip = gzip ? new ParallelGzipOutputStream(Channels.newOutputStream(channel)) : null;
+        }
+
+        void write(ByteBuffer bytes) throws IOException {
+            if(gzip != null)
+            {
+                gzip.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+                return;
+            }
+            while(bytes.hasRemaining())
+            {
+                channel.write(bytes);
+            }
+        }
+
+        void close(boolean force) throws IOException {
+            try {
+                if(gzip != null)
+                {
+                    gzip.finish();
+                }
+                if(force)
+                {
+                    channel.force(false);
+                }
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Byte level state machine that finds the records of a CSV with the quote rule of CSVTokenizer, for CSVFileChunker, CSVRowIndex and
+ * CSVFollower, which look for records without tokenizing them.
+ *
+ * A quote opens a quoted field only at the start of a field, and is a literal character anywhere else. Inside a quoted field, a doubled
+ * quote is an escaped quote and any other quote closes the quoted section; the bytes after it are read as an unquoted field. Records end
+ * at \n, \r or \r\n outside of quotes, and blank lines are not records. A record ends on the step into LINE_START from any other state, and
+ * starts on the step out of LINE_START.
+ *
+ * The delimiter must be a single ASCII character, so that it is one byte in every charset a CSV is read with (canScan()). The bytes of
+ * other characters never match the delimiter, a quote or a line break, so they are read as part of a field.
+ */
+final class CSVRecordScanner {
+
+    /**
+     * Before the first byte of a record, or on a blank line.
+     */
+    static final int LINE_START = 0;
+
+    /**
+     * Just after a delimiter.
+     */
+    static final int FIELD_START = 1;
+
+    /**
+     * In a field that did not start with a quote, or after the closing quote of a quoted field.
+     */
+    static final int UNQUOTED = 2;
+
+    /**
+     * In a quoted field.
+     */
+    static final int QUOTED = 3;
+
+    /**
+     * Just after a quote in a quoted field: it either closes the field, or is escaped by the next byte.
+     */
+    static final int QUOTE = 4;
+
+    static final int STATES = 5;
+
+    //bytes scanned by endStates() before merging the start states that have reached the same state
+    private static final int BLOCK_SIZE = 4096;
+
+    //transitions[state << 8 | byte] is the state after the byte
+    private final byte[] transitions = new byte[STATES << 8];
+
+    /**
+     * @param delimiter single ASCII character delimiter, ex: ",". See canScan().
+     */
+    CSVRecordScanner(String delimiter) {
+        if(!canScan(delimiter))
+        {
+            throw new IllegalArgumentException(String.format("Delimeter \"%s\" must be a single ASCII character. ", delimiter));
+        }
+        int delimiterByte = delimiter.charAt(0);
+        for(int b = 0; b < 256; b++)
+        {
+            int unquoted;
+            if(b == delimiterByte)
+            {
+                unquoted = FIELD_START;
+            }
+            else if(b == '\n' || b == '\r')
+            {
+                unquoted = LINE_START;
+            }
+            else
+            {
+                unquoted = UNQUOTED;
+            }
+            boolean quote = b == '"';
+            transitions[LINE_START << 8 | b] = (byte) (quote ? QUOTED : unquoted);
+            transitions[FIELD_START << 8 | b] = (byte) (quote ? QUOTED : unquoted);
+            transitions[UNQUOTED << 8 | b] = (byte) unquoted;
+            transitions[QUOTED << 8 | b] = (byte) (quote ? QUOTE : QUOTED);
+            transitions[QUOTE << 8 | b] = (byte) (quote ? QUOTED : unquoted);
+        }
+    }
+
+    /**
+     * @return true if records can be found with the delimiter: a single ASCII character other than a quote or a line break.
+     */
+    static boolean canScan(String delimiter) {
+        if(delimiter == null || delimiter.length() != 1)
+        {
+            return false;
+        }
+        char c = delimiter.charAt(0);
+        return c < 0x80 && c != '"' && c != '\n' && c != '\r';
+    }
+
+    /**
+     * @return state after the byte b in state.
+     */
+    int next(int state, byte b) {
+        return transitions[state << 8 | (b & 0xFF)];
+    }
+
+    /**
+     * @return state after the bytes of the buffer from index 0 to its limit, starting in state.
+     */
+    int scan(ByteBuffer buffer, int state) {
+        return scan(buffer, 0, buffer.limit(), state);
+    }
+
+    private int scan(ByteBuffer buffer, int from, int to, int state) {
+        for(int i = from; i < to; i++)
+        {
+            state = transitions[state << 8 | (buffer.get(i) & 0xFF)];
+        }
+        return state;
+    }
+
+    /**
+     * Scan the buffer once for every possible start state, so the state at its end is known before the state at its start is. Start states
+     * that reach the same state are scanned as one from there on; usually only QUOTED and one other state are left after the first line.
+     * @return array of the state after the buffer for every start state, ex: endStates[LINE_START].
+     */
+    int[] endStates(ByteBuffer buffer) {
+        //states[t] is the state of track t, and track[s] the track of start state s
+        int[] states = new int[STATES];
+        int[] track = new int[STATES];
+        int tracks = STATES;
+        for(int s = 0; s < STATES; s++)
+        {
+            states[s] = s;
+            track[s] = s;
+        }
+        int length = buffer.limit();
+        for(int from = 0; from < length; from += BLOCK_SIZE)
+        {
+            int to = Math.min(length, from + BLOCK_SIZE);
+            for(int t = 0; t < tracks; t++)
+            {
+                states[t] = scan(buffer, from, to, states[t]);
+            }
+            //merge tracks in the same state
+            int merged = 0;
+            int[] mergedTrack = new int[STATES];
+            for(int t = 0; t < tracks; t++)
+            {
+                int m = 0;
+                while(m < merged && states[m] != states[t])
+                {
+                    m++;
+                }
+                if(m == merged)
+                {
+                    states[merged++] = states[t];
+                }
+                mergedTrack[t] = m;
+            }
+            for(int s = 0; s < STATES; s++)
+            {
+                track[s] = mergedTrack[track[s]];
+            }
+            tracks = merged;
+        }
+        int[] endStates = new int[STATES];
+        for(int s = 0; s < STATES; s++)
+        {
+            endStates[s] = states[track[s]];
+        }
+        return endStates;
+    }
+}
@@ -0,0 +1,110 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over the records of a CSVTokenizer. Records are tokenized on demand, so only the rows currently being
+ * processed are held in memory.
+ *
+ * The tokenizer is closed as soon as the end of the CSV is reached, or when close() is called by the owning Stream's onClose handler.
+ * trySplit hands off batches of already tokenized records (growing in size, in the style of Spliterators.AbstractSpliterator),
+ * so the conversion of records into objects can be spread over a parallel stream.
+ */
+class CSVRecordSpliterator implements Spliterator<String[]>, Closeable {
+
+    private static final int BATCH_UNIT = 1024;
+
+    private static final int MAX_BATCH = 1 << 25;
+
+    private final CSVTokenizer tokenizer;
+
+    private boolean finished = false;
+
+    private int batch = 0;
+
+    CSVRecordSpliterator(CSVTokenizer tokenizer) {
+        this.tokenizer = tokenizer;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super String[]> action) {
+        String[] record = next();
+        if(record == null)
+        {
+            return false;
+        }
+        action.accept(record);
+        return true;
+    }
+
+    @Override
+    public Spliterator<String[]> trySplit() {
+        if(finished)
+        {
+            return null;
+        }
+
+        int n = Math.min(batch + BATCH_UNIT, MAX_BATCH);
+        String[][] records = new String[n][];
+        int count = 0;
+        String[] record;
+        while(count < n && (record = next()) != null)
+        {
+            records[count++] = record;
+        }
+        if(count == 0)
+        {
+            return null;
+        }
+        batch = count;
+        return Spliterators.spliterator(records, 0, count, ORDERED | NONNULL);
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    private String[] next() {
+        if(finished)
+        {
+            return null;
+        }
+        try {
+            String[] record = tokenizer.nextRecord();
+            if(record == null)
+            {
+                close();
+            }
+            return record;
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Close the underlying file or URL connection. Safe to call more than once.
+     */
+    @Override
+    public void close() {
+        if(finished)
+        {
+            return;
+        }
+        finished = true;
+        try {
+            tokenizer.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.zip.CRC32;
+
+/**
+ * Byte offsets of every rowInterval-th data record of a local CSV file, for AutoReadCSV.readRows() and count().
+ *
+ * The index is stored next to the CSV in a sidecar file (menu.csv.idx) and reused by later runs for as long as it matches the CSV: the
+ * size and modification time of the file, and a CRC32 of its last CHECKSUM_BYTES, are compared before each use, so a CSV that was appended
+ * to or rewritten is indexed again. Building an index scans the file once on all cores: the ranges of CSVFileChunker are scanned for records
+ * in parallel, counted, then scanned again to record the offsets of the indexed rows. Records are found with the quote rule of CSVTokenizer
+ * (see CSVRecordScanner), so the index counts the rows the tokenizer reads, and blank lines are not rows. The delimiter is part of the
+ * index, as it decides where quoted fields start.
+ */
+final class CSVRowIndex {
+
+    //"ACSVIDX2", indexes of version 1 counted quotes by parity and are built again
+    private static final long MAGIC = 0x4143535649445832L;
+
+    private static final int CHECKSUM_BYTES = 64 * 1024;
+
+    private final long fileSize;
+
+    private final long lastModified;
+
+    private final long checksum;
+
+    private final String delimiter;
+
+    private final int rowInterval;
+
+    private final long rowCount;
+
+    //offsets[k] is the first byte of data row k * rowInterval
+    private final long[] offsets;
+
+    private CSVRowIndex(long fileSize, long lastModified, long checksum, String delimiter, int rowInterval, long rowCount, long[] offsets) {
+        this.fileSize = fileSize;
+        this.lastModified = lastModified;
+        this.checksum = checksum;
+        this.delimiter = delimiter;
+        this.rowInterval = rowInterval;
+        this.rowCount = rowCount;
+        this.offsets = offsets;
+    }
+
+    /**
+     * @return sidecar file of the index of a CSV, ex: menu.csv.idx.
+     */
+    static File indexFileOf(File csvFile) {
+        return new File(csvFile.getPath() + ".idx");
+    }
+
+    /**
+     * Read the index of a CSV from its sidecar file.
+     * @return the index, or null if there is none or it no longer matches the CSV.
+     */
+    static CSVRowIndex load(File csvFile, int rowInterval, String delimiter) {
+        File indexFile = indexFileOf(csvFile);
+        if(!indexFile.isFile())
+        {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if(in.readLong() != MAGIC)
+            {
+                return null;
+            }
+            long fileSize = in.readLong();
+            long lastModified = in.readLong();
+            long checksum = in.readLong();
+            String indexDelimiter = in.readUTF();
+            int interval = in.readInt();
+            long rowCount = in.readLong();
+            long[] offsets = new long[in.readInt()];
+            for(int i = 0; i < offsets.length; i++)
+            {
+                offsets[i] = in.readLong();
+            }
+            CSVRowIndex index = new CSVRowIndex(fileSize, lastModified, checksum, indexDelimiter, interval, rowCount, offsets);
+            return index.isCurrent(csvFile, rowInterval, delimiter) ? index : null;
+        } catch (EOFException e) {
+            //written in part
+            return null;
+        } catch (IOException e) {
+            System.out.println(String.format("ERROR: Failed to read the row index of the CSV. %s", e.getMessage()));
+            return null;
+        }
+    }
+
+    /**
+     * Index a CSV file.
+     * @param rowInterval rows between two indexed rows. Smaller intervals make readRows() skip fewer rows, and the index larger.
+     * @param delimiter delimiter of the CSV, see CSVRecordScanner.canScan().
+     * @throws IOException if the file cannot be read.
+     */
+    static CSVRowIndex build(File csvFile, int rowInterval, String delimiter) throws IOException {
+        try (FileChannel channel = FileChannel.open(csvFile.toPath(), StandardOpenOption.READ)) {
+            long lastModified = csvFile.lastModified();
+            long size = channel.size();
+            CSVRecordScanner scanner = new CSVRecordScanner(delimiter);
+            long[] ranges = CSVFileChunker.split(channel, scanner);
+            int rangeCount = ranges.length - 1;
+
+            long[] rangeRows = IntStream.range(0, rangeCount).parallel()
+                    .mapToLong(i -> scan(channel, scanner, ranges[i], ranges[i + 1], 0, rowInterval, null))
+                    .toArray();
+
+            long[] firstRows = new long[rangeCount];
+            long rowCount = 0;
+            for(int i = 0; i < rangeCount; i++)
+            {
+                firstRows[i] = rowCount;
+                rowCount += rangeRows[i];
+            }
+
+            long[] offsets = IntStream.range(0, rangeCount).parallel().mapToObj(i -> {
+                LongStream.Builder rangeOffsets = LongStream.builder();
+                scan(channel, scanner, ranges[i], ranges[i + 1], firstRows[i], rowInterval, rangeOffsets);
+                return rangeOffsets.build();
+            }).flatMapToLong(rangeOffsets -> rangeOffsets).toArray();
+
+            return new CSVRowIndex(size, lastModified, checksum(channel, size), delimiter, rowInterval, rowCount, offsets);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Write the index to the sidecar file of the CSV. The file is replaced at once, so a reader never sees it written in part.
+     * @throws IOException if the sidecar file cannot be written, ex: the directory of the CSV is read only.
+     */
+    void save(File csvFile) throws IOException {
+        File indexFile = indexFileOf(csvFile);
+        File partFile = new File(indexFile.getPath() + ".part");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(partFile)))) {
+            out.writeLong(MAGIC);
+            out.writeLong(fileSize);
+            out.writeLong(lastModified);
+            out.writeLong(checksum);
+            out.writeUTF(delimiter);
+            out.writeInt(rowInterval);
+            out.writeLong(rowCount);
+            out.writeInt(offsets.length);
+            for(long offset: offsets)
+            {
+                out.writeLong(offset);
+            }
+        }
+        Files.move(partFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return true if the index was built with rowInterval and delimiter from the CSV as it is now.
+     */
+    boolean isCurrent(File csvFile, int rowInterval, String delimiter) {
+        if(this.rowInterval != rowInterval || !this.delimiter.equals(delimiter) || csvFile.length() != fileSize || csvFile.lastModified() != lastModified)
+        {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(csvFile.toPath(), StandardOpenOption.READ)) {
+            return channel.size() == fileSize && checksum(channel, fileSize) == checksum;
+        } catch (IOException | UncheckedIOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return number of data rows of the CSV, not counting the header.
+     */
+    long rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return index of the closest indexed row at or before row.
+     */
+    long indexedRowBefore(long row) {
+        return row / rowInterval * rowInterval;
+    }
+
+    /**
+     * @return offset of the first byte of an indexed row, see indexedRowBefore().
+     */
+    long offsetOf(long indexedRow) {
+        return offsets[(int) (indexedRow / rowInterval)];
+    }
+
+    /**
+     * @return offsets of the indexed rows, offsets[k] being the first byte of row k * rowInterval.
+     */
+    long[] offsets() {
+        return offsets;
+    }
+
+    /**
+     * Find the records of a range of the file, which must start on a record. A record starts where the scanner leaves LINE_START, at the
+     * first byte of a line that is not a line break, outside of quotes.
+     * @param firstRow row number of the first record of the range.
+     * @param offsets receives the offset of every record whose row number is a multiple of rowInterval, null to only count.
+     * @return number of records in the range.
+     */
+    private static long scan(FileChannel channel, CSVRecordScanner scanner, long start, long end, long firstRow, int rowInterval,
+                             LongStream.Builder offsets) {
+        ByteBuffer range;
+        try {
+            range = CSVFileChunker.map(channel, start, end);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int length = range.limit();
+        long rows = 0;
+        int state = CSVRecordScanner.LINE_START;
+        for(int i = 0; i < length; i++)
+        {
+            int next = scanner.next(state, range.get(i));
+            if(state == CSVRecordScanner.LINE_START && next != CSVRecordScanner.LINE_START)
+            {
+                if(offsets != null && (firstRow + rows) % rowInterval == 0)
+                {
+                    offsets.add(start + i);
+                }
+                rows++;
+            }
+            state = next;
+        }
+        return rows;
+    }
+
+    private static long checksum(FileChannel channel, long size) throws IOException {
+        long start = Math.max(0, size - CHECKSUM_BYTES);
+        ByteBuffer tail = ByteBuffer.allocate((int) (size - start));
+        while(tail.hasRemaining())
+        {
+            if(channel.read(tail, start + tail.position()) < 0)
+            {
+                break;
+            }
+        }
+        CRC32 crc = new CRC32();
+        tail.flip();
+        crc.update(tail);
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,21 @@
+/**
+ * Converts the String cells of one CSV record into an instance of the class representing the CSV.
+ *
+ * buildPOJO generates an implementation of this interface as a nested class of every CSV class. The generated mapper calls
+ * the @CSVConstructor directly with the cell converters chosen at generation time, so no reflection is needed per row. Classes without a
+ * generated mapper are read through a MethodHandle based binder instead.
+ * @param <T> Class representing the CSV.
+ */
+public interface CSVRowMapper<T> {
+
+    /**
+     * @return java qualified names of the columns, in the CSV column order this mapper expects.
+     */
+    String[] getColumnNames();
+
+    /**
+     * @param row cells of one record, in CSV column order.
+     * @return instance of the CSV class holding the parsed cells.
+     */
+    T mapRow(String[] row);
+}
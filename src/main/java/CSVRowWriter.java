@@ -0,0 +1,351 @@
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Formats objects of a CSV class as CSV lines for AutoWriteCSV.
+ *
+ * The getter of every @CSVField is resolved to a MethodHandle once per class, typed so that int, long, double and boolean fields are read
+ * without boxing. Cells are appended to a StringBuilder that the caller reuses: numbers and booleans are appended as digits directly, and
+ * LocalDate and LocalDateTime cells digit by digit in the format of their toString(), so writing a row allocates nothing for them.
+ * Cells containing the delimeter, a quote or a line break are quoted, with quotes doubled, as in RFC 4180. Null cells, and cells recorded as
+ * missing by classes with primitive fields, are written empty.
+ */
+final class CSVRowWriter {
+
+    private static final ClassValue<CSVRowWriter> WRITERS = new ClassValue<CSVRowWriter>() {
+        @Override
+        protected CSVRowWriter computeValue(Class<?> type) {
+            return new CSVRowWriter(type);
+        }
+    };
+
+    private static final char DELIMETER = ',';
+
+    private static final int OBJECT = 0;
+    private static final int INT = 1;
+    private static final int LONG = 2;
+    private static final int DOUBLE = 3;
+    private static final int BOOLEAN = 4;
+
+    //return type of the getters of each kind, short and byte fields are widened, float fields are written as Float
+    private static final Class<?>[] RETURN_TYPES = {Object.class, int.class, long.class, double.class, boolean.class};
+
+    private final String[] names;
+
+    /**
+     * Getter of every field, taking an Object and returning int, long, double, boolean or Object as given by kinds.
+     */
+    private final MethodHandle[] getters;
+
+    private final int[] kinds;
+
+    /**
+     * isXMissing() of every nullable field of a class with primitive fields, null for other fields.
+     */
+    private final MethodHandle[] missing;
+
+    private CSVRowWriter(Class<?> CSVClass) {
+        ArrayList<Field> fields = new ArrayList<>();
+        for(Field f: CSVClass.getDeclaredFields())
+        {
+            if(f.isAnnotationPresent(CSVField.class) && !Modifier.isStatic(f.getModifiers()))
+            {
+                fields.add(f);
+            }
+        }
+
+        names = new String[fields.size()];
+        getters = new MethodHandle[fields.size()];
+        kinds = new int[fields.size()];
+        missing = new MethodHandle[fields.size()];
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        for(int i = 0; i < fields.size(); i++)
+        {
+            Field f = fields.get(i);
+            names[i] = f.getName();
+            kinds[i] = kindOf(f.getType());
+            try {
+                f.setAccessible(true);
+                MethodHandle getter = lookup.unreflectGetter(f);
+                getters[i] = getter.asType(MethodType.methodType(RETURN_TYPES[kinds[i]], Object.class));
+
+                if(f.getAnnotation(CSVField.class).nullable() && f.getType().isPrimitive())
+                {
+                    Method isMissing = CSVClass.getMethod("is" + f.getName() + "Missing");
+                    missing[i] = lookup.unreflect(isMissing).asType(MethodType.methodType(boolean.class, Object.class));
+                }
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException(String.format("Field %s of class %s is not accessible. ", f.getName(), CSVClass.getName()), e);
+            } catch (NoSuchMethodException e) {
+                missing[i] = null; //user modified class, write the field value as it is
+            }
+        }
+    }
+
+    /**
+     * @return the writer of the class, resolved on first use.
+     */
+    static CSVRowWriter forClass(Class<?> CSVClass) {
+        return WRITERS.get(CSVClass);
+    }
+
+    /**
+     * Key of a partitioned write: the value of a @CSVField read with its generated getter, or read from the field if the getter has been
+     * removed.
+     * @param fieldName name of the @CSVField.
+     * @return function from a row to the text of the field, empty if it is null or missing.
+     * @throws IllegalArgumentException if the class has no @CSVField of that name.
+     */
+    Function<Object, String> partitionKey(Class<?> CSVClass, String fieldName) {
+        int field = Arrays.asList(names).indexOf(fieldName);
+        if(field < 0)
+        {
+            throw new IllegalArgumentException(String.format("Class %s has no @CSVField %s. ", CSVClass.getName(), fieldName));
+        }
+
+        MethodHandle getter;
+        try {
+            getter = MethodHandles.publicLookup().findVirtual(CSVClass, "get" + fieldName, MethodType.methodType(fieldType(CSVClass, fieldName)))
+                    .asType(MethodType.methodType(Object.class, Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            getter = getters[field].asType(MethodType.methodType(Object.class, Object.class));
+        }
+
+        MethodHandle value = getter;
+        MethodHandle isMissing = missing[field];
+        return row -> {
+            try {
+                if(isMissing != null && (boolean) isMissing.invokeExact(row))
+                {
+                    return "";
+                }
+                Object key = (Object) value.invokeExact(row);
+                return key == null ? "" : key.toString();
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException(t); //getters do not throw checked exceptions
+            }
+        };
+    }
+
+    private static Class<?> fieldType(Class<?> CSVClass, String fieldName) {
+        try {
+            return CSVClass.getDeclaredField(fieldName).getType();
+        } catch (NoSuchFieldException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static int kindOf(Class<?> type) {
+        if(type == int.class || type == short.class || type == byte.class)
+        {
+            return INT;
+        }
+        if(type == long.class)
+        {
+            return LONG;
+        }
+        if(type == double.class)
+        {
+            return DOUBLE;
+        }
+        if(type == boolean.class)
+        {
+            return BOOLEAN;
+        }
+        return OBJECT;
+    }
+
+    /**
+     * Append the header line, the names of the @CSVField fields.
+     */
+    void writeHeader(StringBuilder line) {
+        for(int i = 0; i < names.length; i++)
+        {
+            if(i > 0)
+            {
+                line.append(DELIMETER);
+            }
+            appendEscaped(line, names[i]);
+        }
+        line.append('\n');
+    }
+
+    /**
+     * Append one object as a CSV line, ending with a line break.
+     */
+    void writeRow(Object row, StringBuilder line) {
+        try {
+            for(int i = 0; i < getters.length; i++)
+            {
+                if(i > 0)
+                {
+                    line.append(DELIMETER);
+                }
+                if(missing[i] != null && (boolean) missing[i].invokeExact(row))
+                {
+                    continue;
+                }
+                switch (kinds[i])
+                {
+                    case INT:
+                        line.append((int) getters[i].invokeExact(row));
+                        break;
+                    case LONG:
+                        line.append((long) getters[i].invokeExact(row));
+                        break;
+                    case DOUBLE:
+                        line.append((double) getters[i].invokeExact(row));
+                        break;
+                    case BOOLEAN:
+                        line.append((boolean) getters[i].invokeExact(row));
+                        break;
+                    default:
+                        appendCell(line, (Object) getters[i].invokeExact(row));
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t); //getters do not throw checked exceptions
+        }
+        line.append('\n');
+    }
+
+    private static void appendCell(StringBuilder line, Object value) {
+        if(value == null)
+        {
+            return;
+        }
+        if(value instanceof Integer || value instanceof Short || value instanceof Byte)
+        {
+            line.append(((Number) value).intValue());
+        }
+        else if(value instanceof Long)
+        {
+            line.append((long) value);
+        }
+        else if(value instanceof Double)
+        {
+            line.append((double) value);
+        }
+        else if(value instanceof Float)
+        {
+            line.append((float) value);
+        }
+        else if(value instanceof Boolean)
+        {
+            line.append((boolean) value);
+        }
+        else if(value instanceof LocalDate && isFourDigitYear(((LocalDate) value).getYear()))
+        {
+            appendDate(line, (LocalDate) value);
+        }
+        else if(value instanceof LocalDateTime && isFourDigitYear(((LocalDateTime) value).getYear()))
+        {
+            appendDate(line, ((LocalDateTime) value).toLocalDate());
+            line.append('T');
+            appendTime(line, ((LocalDateTime) value).toLocalTime());
+        }
+        else
+        {
+            appendEscaped(line, value.toString());
+        }
+    }
+
+    /**
+     * Append a cell quoted if it contains the delimeter, a quote or a line break, with quotes doubled.
+     */
+    static void appendEscaped(StringBuilder line, String cell) {
+        boolean quote = false;
+        for(int i = 0; i < cell.length() && !quote; i++)
+        {
+            char c = cell.charAt(i);
+            quote = c == DELIMETER || c == '"' || c == '\n' || c == '\r';
+        }
+        if(!quote)
+        {
+            line.append(cell);
+            return;
+        }
+
+        line.append('"');
+        for(int i = 0; i < cell.length(); i++)
+        {
+            char c = cell.charAt(i);
+            if(c == '"')
+            {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    //toString() of dates outside 0-9999 has a sign or more digits, written with toString() instead
+    private static boolean isFourDigitYear(int year) {
+        return year >= 0 && year <= 9999;
+    }
+
+    //same as LocalDate.toString(), ex: 2021-03-07
+    private static void appendDate(StringBuilder line, LocalDate date) {
+        appendPadded(line, date.getYear(), 4);
+        line.append('-');
+        appendPadded(line, date.getMonthValue(), 2);
+        line.append('-');
+        appendPadded(line, date.getDayOfMonth(), 2);
+    }
+
+    //same as LocalTime.toString(), ex: 09:30, 09:30:15 or 09:30:15.250
+    private static void appendTime(StringBuilder line, LocalTime time) {
+        appendPadded(line, time.getHour(), 2);
+        line.append(':');
+        appendPadded(line, time.getMinute(), 2);
+        int second = time.getSecond();
+        int nano = time.getNano();
+        if(second > 0 || nano > 0)
+        {
+            line.append(':');
+            appendPadded(line, second, 2);
+            if(nano > 0)
+            {
+                line.append('.');
+                if(nano % 1_000_000 == 0)
+                {
+                    appendPadded(line, nano / 1_000_000, 3);
+                }
+                else if(nano % 1000 == 0)
+                {
+                    appendPadded(line, nano / 1000, 6);
+                }
+                else
+                {
+                    appendPadded(line, nano, 9);
+                }
+            }
+        }
+    }
+
+    private static void appendPadded(StringBuilder line, int value, int digits) {
+        for(int limit = 10; digits > 1; digits--, limit *= 10)
+        {
+            if(value < limit)
+            {
+                line.append('0');
+            }
+        }
+        line.append(value);
+    }
+}
@@ -0,0 +1,182 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+
+/**
+ * RFC 4180 tokenizer that splits a character stream into records in a single pass.
+ *
+ * The tokenizer is a small state machine over a reusable character buffer. Quoted fields may contain the delimiter,
+ * line breaks, and escaped quotes (""). Records end at \n, \r\n or \r outside of quotes. Completely blank lines are skipped.
+ *
+ * The tokenizer is lenient where RFC 4180 is not: a quote that does not open a field is kept as a literal character,
+ * and characters following a closing quote are appended to the field.
+ */
+class CSVTokenizer implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader reader;
+
+    private final char delimiter;
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+
+    private int position = 0;
+
+    private int limit = 0;
+
+    //reused between records to avoid reallocating per field/row
+    private final StringBuilder field = new StringBuilder();
+
+    private final ArrayList<String> record = new ArrayList<>();
+
+    /**
+     * @param reader source of the CSV characters. Closed when the tokenizer is closed.
+     * @param delimiter single character delimiter, ex: ",".
+     */
+    CSVTokenizer(Reader reader, String delimiter) {
+        if(delimiter == null || delimiter.length() != 1)
+        {
+            throw new IllegalArgumentException(String.format("Delimeter \"%s\" must be a single character. ", delimiter));
+        }
+        this.reader = reader;
+        this.delimiter = delimiter.charAt(0);
+    }
+
+    /**
+     * Read the next record from the stream.
+     * @return the fields of the next record, or null if the end of the stream has been reached.
+     * @throws IOException if the underlying reader fails.
+     */
+    String[] nextRecord() throws IOException {
+        record.clear();
+        field.setLength(0);
+
+        boolean quoted = false;      //currently inside a quoted field
+        boolean fieldStarted = false; //at least one char of the current field (or an opening quote) has been seen
+        boolean recordStarted = false;
+
+        while(true)
+        {
+            if(position >= limit && !fill())
+            {
+                //EOF
+                if(!recordStarted)
+                {
+                    return null;
+                }
+                record.add(field.toString());
+                return record.toArray(new String[0]);
+            }
+
+            if(quoted)
+            {
+                //copy everything up to the next quote in one go
+                int start = position;
+                while(position < limit && buffer[position] != '"')
+                {
+                    position++;
+                }
+                field.append(buffer, start, position - start);
+                if(position >= limit)
+                {
+                    continue;
+                }
+                position++; //consume quote
+
+                //a doubled quote is an escaped quote, anything else closes the quoted section
+                if(position >= limit && !fill())
+                {
+                    quoted = false;
+                    continue;
+                }
+                if(buffer[position] == '"')
+                {
+                    field.append('"');
+                    position++;
+                }
+                else
+                {
+                    quoted = false;
+                }
+                continue;
+            }
+
+            char c = buffer[position];
+
+            if(c == delimiter)
+            {
+                position++;
+                record.add(field.toString());
+                field.setLength(0);
+                fieldStarted = false;
+                recordStarted = true;
+            }
+            else if(c == '\n' || c == '\r')
+            {
+                position++;
+                if(c == '\r')
+                {
+                    //swallow the \n of a \r\n pair
+                    if((position < limit || fill()) && buffer[position] == '\n')
+                    {
+                        position++;
+                    }
+                }
+                if(!recordStarted)
+                {
+                    continue; //blank line
+                }
+                record.add(field.toString());
+                return record.toArray(new String[0]);
+            }
+            else if(c == '"' && !fieldStarted)
+            {
+                position++;
+                quoted = true;
+                fieldStarted = true;
+                recordStarted = true;
+            }
+            else
+            {
+                //unquoted run, copy until the next special character
+                int start = position;
+                while(position < limit)
+                {
+                    char u = buffer[position];
+                    if(u == delimiter || u == '\n' || u == '\r')
+                    {
+                        break;
+                    }
+                    position++;
+                }
+                field.append(buffer, start, position - start);
+                fieldStarted = true;
+                recordStarted = true;
+            }
+        }
+    }
+
+    private boolean fill() throws IOException {
+        int read = reader.read(buffer, 0, buffer.length);
+        while(read == 0)
+        {
+            read = reader.read(buffer, 0, buffer.length);
+        }
+        if(read < 0)
+        {
+            position = 0;
+            limit = 0;
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
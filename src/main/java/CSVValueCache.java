@@ -0,0 +1,93 @@
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Canonicalizes the parsed values of one column while a CSV is read, so repeated cells share one instance and are only parsed once.
+ *
+ * Generated row mappers keep one cache per String, LocalDate and LocalDateTime column. Cells are looked up by their raw text: on a hit the
+ * value parsed for the first occurrence is returned, so low cardinality columns (ex: categories, days) hold one object per distinct value
+ * instead of one per row, and dates are not parsed again. The cache holds at most CAPACITY values. It checks its hit rate every WINDOW
+ * lookups and turns itself off, releasing its values, once a column turns out to be close to unique.
+ *
+ * Safe to share between the threads of a parallel read. Hit counts are kept without synchronization, so they are approximate when shared.
+ * @param <T> datatype of the column.
+ */
+public final class CSVValueCache<T> {
+
+    private static final int CAPACITY = 4096;
+
+    private static final int WINDOW = 1024;
+
+    //a window with fewer hits than this means most cells are distinct
+    private static final int MIN_HITS = WINDOW / 4;
+
+    //stands in for null values, which ConcurrentHashMap cannot hold (ex: unparseable dates)
+    private static final Object NULL = new Object();
+
+    private final Function<String, T> parser;
+
+    private final ConcurrentHashMap<String, Object> values = new ConcurrentHashMap<>();
+
+    private int lookups = 0;
+
+    private int hits = 0;
+
+    private volatile boolean disabled = false;
+
+    /**
+     * @param parser parser of the column, ex: CSVCellParser::parseString.
+     */
+    public CSVValueCache(Function<String, T> parser) {
+        this.parser = parser;
+    }
+
+    /**
+     * @param cell raw cell from the CSV.
+     * @return the parsed cell, the same instance as for earlier cells with the same text while the cache is on.
+     */
+    @SuppressWarnings("unchecked")
+    public T get(String cell) {
+        if(disabled)
+        {
+            return parser.apply(cell);
+        }
+
+        Object value = values.get(cell);
+        if(value != null)
+        {
+            hits++;
+        }
+        else
+        {
+            T parsed = parser.apply(cell);
+            value = parsed == null ? NULL : parsed;
+            if(values.size() < CAPACITY)
+            {
+                Object raced = values.putIfAbsent(cell, value);
+                if(raced != null)
+                {
+                    value = raced;
+                }
+            }
+        }
+
+        if(++lookups >= WINDOW)
+        {
+            if(hits < MIN_HITS)
+            {
+                disabled = true;
+                values.clear();
+            }
+            lookups = 0;
+            hits = 0;
+        }
+        return value == NULL ? null : (T) value;
+    }
+
+    /**
+     * @return false once the cache has turned itself off for a high cardinality column.
+     */
+    public boolean isEnabled() {
+        return !disabled;
+    }
+}
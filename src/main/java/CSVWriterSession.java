@@ -0,0 +1,283 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * A CSV file open for writing, to export rows as they are produced instead of collecting them in an ArrayList first. Opened with
+ * AutoWriteCSV.openSession(), and closed with close(), ex: in a try-with-resources.
+ *
+ * Rows are formatted into a buffer of about 64K characters, written to the file when it is full, when flush() or close() is called, and
+ * every flushIntervalMillis, so a slow producer's rows reach the file within the interval. Memory use does not grow with the number of rows.
+ * flush() hands the rows to the operating system; force() also waits until they are on disk.
+ *
+ * The methods of a session lock it one row at a time, so rows can be pushed from more than one thread, and a long writeAll() does not hold
+ * up the scheduled flush. The shared flush thread never waits for a session: if the session is busy, its rows are flushed by the writing
+ * thread once the interval has passed.
+ * @param <T> class of the rows, a CSV class.
+ */
+public final class CSVWriterSession<T> implements AutoCloseable, Flushable {
+
+    private static final int BUFFER_CHARS = 64 * 1024;
+
+    //one thread flushes the sessions of every AutoWriteCSV
+    private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "automaticcsv-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final CSVRowWriter rowWriter;
+
+    private final FileOutputStream file;
+
+    private final Writer out;
+
+    //null if the file is not compressed
+    private final ParallelGzipOutputStream gzip;
+
+    private final boolean forceOnFlush;
+
+    private final ScheduledFuture<?> scheduledFlush;
+
+    private final long flushIntervalNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private long lastFlushNanos = System.nanoTime();
+
+    private final StringBuilder buffer = new StringBuilder(BUFFER_CHARS + 1024);
+
+    private char[] chars = new char[BUFFER_CHARS + 1024];
+
+    private long rowsWritten = 0;
+
+    //failure of a scheduled flush, thrown by the next call
+    private IOException flushFailure;
+
+    private boolean closed = false;
+
+    /**
+     * @param append add rows to the end of the file, without a header if the file is not empty.
+     * @param gzip compress the rows with ParallelGzipOutputStream. Appended rows are a new gzip member of the file.
+     * @param flushIntervalMillis interval of the scheduled flush, 0 or less for none.
+     * @param forceOnFlush also force every flush to disk.
+     * @throws IllegalAccessException if a @CSVField of the class cannot be read.
+     */
+    CSVWriterSession(File csvFileObject, Class<T> CSVClass, boolean append, boolean gzip, long flushIntervalMillis, boolean forceOnFlush)
+            throws IOException, IllegalAccessException {
+        try {
+            this.rowWriter = CSVRowWriter.forClass(CSVClass);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalAccessException(e.getMessage());
+        }
+
+        boolean header = !append || csvFileObject.length() == 0;
+        this.file = new FileOutputStream(csvFileObject, append);
+        this.gzip = gzip ? new ParallelGzipOutputStream(file) : null;
+        this.out = new OutputStreamWriter(gzip ? this.gzip : file);
+        this.forceOnFlush = forceOnFlush;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, flushIntervalMillis));
+        if(header)
+        {
+            rowWriter.writeHeader(buffer);
+        }
+
+        if(flushIntervalMillis > 0)
+        {
+            this.scheduledFlush = FLUSHER.scheduleWithFixedDelay(this::scheduledFlush, flushIntervalMillis, flushIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+        else
+        {
+            this.scheduledFlush = null;
+        }
+    }
+
+    /**
+     * Write one row.
+     */
+    public void write(T row) throws IOException {
+        lock.lock();
+        try {
+            checkOpen();
+            rowWriter.writeRow(row, buffer);
+            rowsWritten++;
+            if(flushIntervalNanos > 0 && System.nanoTime() - lastFlushNanos >= flushIntervalNanos)
+            {
+                //the scheduled flush found the session busy
+                flushBuffer();
+            }
+            else if(buffer.length() >= BUFFER_CHARS)
+            {
+                writeBuffer();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Write every row of a batch, ex: a List of results. The session is locked for one row at a time, so rows written by other threads
+     * at the same time may come between the rows of the batch.
+     */
+    public void writeAll(Iterable<? extends T> rows) throws IOException {
+        writeAll(rows.iterator());
+    }
+
+    /**
+     * Write the rows of an iterator until it is exhausted. Rows are taken one at a time, so it can be a lazy query result.
+     */
+    public void writeAll(Iterator<? extends T> rows) throws IOException {
+        while(rows.hasNext())
+        {
+            write(rows.next());
+        }
+    }
+
+    /**
+     * Write the rows of a Stream, in encounter order. The Stream is consumed but not closed.
+     */
+    public void writeAll(Stream<? extends T> rows) throws IOException {
+        writeAll(rows.iterator());
+    }
+
+    /**
+     * Write the buffered rows to the file, and force them to disk if forceOnFlush.
+     */
+    @Override
+    public void flush() throws IOException {
+        lock.lock();
+        try {
+            checkOpen();
+            flushBuffer();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Write the buffered rows to the file, and wait until the file is on disk.
+     */
+    public void force() throws IOException {
+        lock.lock();
+        try {
+            checkOpen();
+            writeBuffer();
+            out.flush();
+            lastFlushNanos = System.nanoTime();
+            file.getChannel().force(false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of rows written by this session, not counting the header.
+     */
+    public long getRowsWritten() {
+        lock.lock();
+        try {
+            return rowsWritten;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Flush the buffered rows and close the file. Rows are forced to disk if forceOnFlush.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if(closed)
+            {
+                return;
+            }
+            if(scheduledFlush != null)
+            {
+                scheduledFlush.cancel(false);
+            }
+            try {
+                checkOpen();
+                writeBuffer();
+                out.flush();
+                if(gzip != null)
+                {
+                    gzip.finish();
+                }
+                if(forceOnFlush)
+                {
+                    file.getChannel().force(false);
+                }
+            } finally {
+                closed = true;
+                out.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //runs on the shared flush thread, which must not wait for a busy session
+    private void scheduledFlush() {
+        if(!lock.tryLock())
+        {
+            return;
+        }
+        try {
+            if(closed || flushFailure != null)
+            {
+                return;
+            }
+            flushBuffer();
+        } catch (IOException e) {
+            flushFailure = e;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        writeBuffer();
+        out.flush();
+        lastFlushNanos = System.nanoTime();
+        if(forceOnFlush)
+        {
+            file.getChannel().force(false);
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if(closed)
+        {
+            throw new IOException("CSV writer session is closed. ");
+        }
+        if(flushFailure != null)
+        {
+            IOException failure = flushFailure;
+            flushFailure = null;
+            throw failure;
+        }
+    }
+
+    private void writeBuffer() throws IOException {
+        if(chars.length < buffer.length())
+        {
+            chars = new char[buffer.length()];
+        }
+        buffer.getChars(0, buffer.length(), chars, 0);
+        out.write(chars, 0, buffer.length());
+        buffer.setLength(0);
+    }
+}
@@ -0,0 +1,605 @@
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Exception free classification of CSV cells for datatype inference.
+ *
+ * Every cell is scanned once and matched against the lexical shape of each supported datatype, in the same order the parse based checks
+ * were tried: numbers (as accepted by Double.parseDouble and Integer.parseInt), the boolean words Yes/No/True/False, then every supported
+ * date time and date format. Date fields are validated the same way the matching DateTimeFormatter resolves them, so a cell is
+ * classified exactly as parsing it would, without the cost of the exceptions thrown for every format that does not match.
+ * Only ASCII digits are recognized.
+ */
+final class CellClassifier {
+
+    /**
+     * Smallest datatype a single cell can be read in as. For date and date time cells, also the format that matched.
+     */
+    enum CellKind {
+        STRING(String.class, null),
+        BOOLEAN_WORD(Boolean.class, null),
+        ZERO_ONE(Boolean.class, null),
+        INTEGER(Integer.class, null),
+        DOUBLE(Double.class, null),
+        DATE_TIME_ISO(LocalDateTime.class, null),
+        DATE_TIME_MDY_HM(LocalDateTime.class, "M/d/y H:m"),
+        DATE_TIME_MDY_HMS(LocalDateTime.class, "M/d/y H:m:s"),
+        DATE_ISO(LocalDate.class, "yyyy-M-d"),
+        DATE_MDY(LocalDate.class, "M/d/yyyy"),
+        DATE_MDY_SHORT(LocalDate.class, "M/d/yy"),
+        DATE_MDY_DASH(LocalDate.class, "M-d-yyyy"),
+        DATE_MDY_DASH_SHORT(LocalDate.class, "M-dd-yy"),
+        DATE_YMD_SLASH(LocalDate.class, "yyyy/M/d");
+
+        private final Class type;
+
+        private final String format;
+
+        CellKind(Class type, String format) {
+            this.type = type;
+            this.format = format;
+        }
+
+        Class getType() {
+            return type;
+        }
+
+        /**
+         * @return DateTimeFormatter pattern that matched, or null if the cell is not a date or is an ISO date time.
+         */
+        String getFormat() {
+            return format;
+        }
+    }
+
+    private static final DatePattern DATE_TIME_MDY_HM = DatePattern.compile("M/d/y H:m");
+
+    private static final DatePattern DATE_TIME_MDY_HMS = DatePattern.compile("M/d/y H:m:s");
+
+    private static final DatePattern DATE_MDY = DatePattern.compile("M/d/yyyy");
+
+    private static final DatePattern DATE_MDY_SHORT = DatePattern.compile("M/d/yy");
+
+    private static final DatePattern DATE_MDY_DASH = DatePattern.compile("M-d-yyyy");
+
+    private static final DatePattern DATE_MDY_DASH_SHORT = DatePattern.compile("M-dd-yy");
+
+    private static final DatePattern DATE_YMD_SLASH = DatePattern.compile("yyyy/M/d");
+
+    private static final DatePattern DATE_YMD_DASH = DatePattern.compile("yyyy-M-d");
+
+    private CellClassifier() {}
+
+    /**
+     * @param cell cleaned cell (trimmed, never empty).
+     * @return the first matching datatype, in the order numbers, boolean words, date times, dates, String.
+     */
+    static CellKind classify(String cell)
+    {
+        CellKind number = classifyNumber(cell);
+        if(number != null)
+        {
+            return number;
+        }
+
+        if(cell.equalsIgnoreCase("Yes") || cell.equalsIgnoreCase("No") || cell.equalsIgnoreCase("True") || cell.equalsIgnoreCase("False"))
+        {
+            return CellKind.BOOLEAN_WORD;
+        }
+
+        //every date and date time format starts with a digit or a year sign
+        char first = cell.charAt(0);
+        if(!isDigit(first) && first != '+' && first != '-')
+        {
+            return CellKind.STRING;
+        }
+
+        if(isIsoDateTime(cell))
+        {
+            return CellKind.DATE_TIME_ISO;
+        }
+        else if(DATE_TIME_MDY_HM.matches(cell))
+        {
+            return CellKind.DATE_TIME_MDY_HM;
+        }
+        else if(DATE_TIME_MDY_HMS.matches(cell))
+        {
+            return CellKind.DATE_TIME_MDY_HMS;
+        }
+        else if(isIsoDate(cell, 0, cell.length()))
+        {
+            return CellKind.DATE_ISO;
+        }
+        else if(DATE_MDY.matches(cell))
+        {
+            return CellKind.DATE_MDY;
+        }
+        else if(DATE_MDY_SHORT.matches(cell))
+        {
+            return CellKind.DATE_MDY_SHORT;
+        }
+        else if(DATE_MDY_DASH.matches(cell))
+        {
+            return CellKind.DATE_MDY_DASH;
+        }
+        else if(DATE_MDY_DASH_SHORT.matches(cell))
+        {
+            return CellKind.DATE_MDY_DASH_SHORT;
+        }
+        else if(DATE_YMD_SLASH.matches(cell))
+        {
+            return CellKind.DATE_YMD_SLASH;
+        }
+        return CellKind.STRING;
+    }
+
+    /**
+     * Check whether a cell can be parsed as a LocalDate with a detected date format.
+     * @param cell cleaned cell.
+     * @param format DateTimeFormatter pattern of a LocalDate CellKind.
+     */
+    static boolean matchesDateFormat(String cell, String format)
+    {
+        for(CellKind kind: CellKind.values())
+        {
+            if(kind.getType().equals(LocalDate.class) && kind.getFormat().equals(format))
+            {
+                //the ISO CellKind is detected strictly, but its stored pattern is lenient about padding
+                return kind == CellKind.DATE_ISO ? DATE_YMD_DASH.matches(cell) : patternOf(kind).matches(cell);
+            }
+        }
+
+        //not a format produced by classify(), parse it
+        try
+        {
+            LocalDate.parse(cell, DateTimeFormatter.ofPattern(format));
+            return true;
+        }catch(IllegalArgumentException | DateTimeParseException ex)
+        {
+            return false;
+        }
+    }
+
+    private static DatePattern patternOf(CellKind kind)
+    {
+        switch(kind)
+        {
+            case DATE_MDY:
+                return DATE_MDY;
+            case DATE_MDY_SHORT:
+                return DATE_MDY_SHORT;
+            case DATE_MDY_DASH:
+                return DATE_MDY_DASH;
+            case DATE_MDY_DASH_SHORT:
+                return DATE_MDY_DASH_SHORT;
+            case DATE_YMD_SLASH:
+                return DATE_YMD_SLASH;
+            default:
+                return DATE_YMD_DASH;
+        }
+    }
+
+    /**
+     * Mirrors Double.parseDouble and Integer.parseInt.
+     * @return ZERO_ONE, INTEGER or DOUBLE, or null if the cell is not a number.
+     */
+    private static CellKind classifyNumber(String cell)
+    {
+        int length = cell.length();
+        int i = 0;
+        boolean negative = false;
+        char c = cell.charAt(0);
+        if(c == '+' || c == '-')
+        {
+            negative = c == '-';
+            i++;
+        }
+        if(i >= length)
+        {
+            return null;
+        }
+
+        if(cell.startsWith("NaN", i) || cell.startsWith("Infinity", i))
+        {
+            int end = i + (cell.charAt(i) == 'N' ? 3 : 8);
+            return end == length ? CellKind.DOUBLE : null;
+        }
+
+        if(cell.charAt(i) == '0' && i + 1 < length && (cell.charAt(i + 1) == 'x' || cell.charAt(i + 1) == 'X'))
+        {
+            return isHexFloat(cell, i + 2) ? CellKind.DOUBLE : null;
+        }
+
+        //integer digits
+        int digitsStart = i;
+        long value = 0;
+        while(i < length && isDigit(cell.charAt(i)))
+        {
+            if(value <= Integer.MAX_VALUE + 1L)
+            {
+                value = value * 10 + (cell.charAt(i) - '0');
+            }
+            i++;
+        }
+        int intDigits = i - digitsStart;
+
+        if(i == length)
+        {
+            if(intDigits == 0)
+            {
+                return null;
+            }
+            long signed = negative ? -value : value;
+            if(signed < Integer.MIN_VALUE || signed > Integer.MAX_VALUE)
+            {
+                return CellKind.DOUBLE;
+            }
+            return signed == 0 || signed == 1 ? CellKind.ZERO_ONE : CellKind.INTEGER;
+        }
+
+        //fraction
+        int fractionDigits = 0;
+        if(cell.charAt(i) == '.')
+        {
+            i++;
+            while(i < length && isDigit(cell.charAt(i)))
+            {
+                fractionDigits++;
+                i++;
+            }
+        }
+        if(intDigits == 0 && fractionDigits == 0)
+        {
+            return null;
+        }
+
+        //exponent
+        if(i < length && (cell.charAt(i) == 'e' || cell.charAt(i) == 'E'))
+        {
+            i++;
+            if(i < length && (cell.charAt(i) == '+' || cell.charAt(i) == '-'))
+            {
+                i++;
+            }
+            int exponentDigits = 0;
+            while(i < length && isDigit(cell.charAt(i)))
+            {
+                exponentDigits++;
+                i++;
+            }
+            if(exponentDigits == 0)
+            {
+                return null;
+            }
+        }
+
+        //float/double type suffix
+        if(i < length && isTypeSuffix(cell.charAt(i)))
+        {
+            i++;
+        }
+        return i == length ? CellKind.DOUBLE : null;
+    }
+
+    private static boolean isHexFloat(String cell, int i)
+    {
+        int length = cell.length();
+        int digits = 0;
+        while(i < length && Character.digit(cell.charAt(i), 16) >= 0 && cell.charAt(i) < 128)
+        {
+            digits++;
+            i++;
+        }
+        if(i < length && cell.charAt(i) == '.')
+        {
+            i++;
+            while(i < length && Character.digit(cell.charAt(i), 16) >= 0 && cell.charAt(i) < 128)
+            {
+                digits++;
+                i++;
+            }
+        }
+        //the binary exponent is mandatory
+        if(digits == 0 || i >= length || (cell.charAt(i) != 'p' && cell.charAt(i) != 'P'))
+        {
+            return false;
+        }
+        i++;
+        if(i < length && (cell.charAt(i) == '+' || cell.charAt(i) == '-'))
+        {
+            i++;
+        }
+        int exponentDigits = 0;
+        while(i < length && isDigit(cell.charAt(i)))
+        {
+            exponentDigits++;
+            i++;
+        }
+        if(exponentDigits == 0)
+        {
+            return false;
+        }
+        if(i < length && isTypeSuffix(cell.charAt(i)))
+        {
+            i++;
+        }
+        return i == length;
+    }
+
+    /**
+     * ISO_LOCAL_DATE_TIME, ex: 2020-03-12T17:19 or 2020-03-12T17:19:23.5
+     */
+    private static boolean isIsoDateTime(String cell)
+    {
+        int t = cell.indexOf('T');
+        if(t < 0 || !isIsoDate(cell, 0, t))
+        {
+            return false;
+        }
+        int i = t + 1;
+        int length = cell.length();
+        if(!twoDigitsInRange(cell, i, 23) || i + 2 >= length || cell.charAt(i + 2) != ':' || !twoDigitsInRange(cell, i + 3, 59))
+        {
+            return false;
+        }
+        i += 5;
+        if(i == length)
+        {
+            return true;
+        }
+        if(cell.charAt(i) != ':' || !twoDigitsInRange(cell, i + 1, 59))
+        {
+            return false;
+        }
+        i += 3;
+        if(i == length)
+        {
+            return true;
+        }
+        if(cell.charAt(i) != '.')
+        {
+            return false;
+        }
+        i++;
+        int fractionDigits = 0;
+        while(i < length && isDigit(cell.charAt(i)))
+        {
+            fractionDigits++;
+            i++;
+        }
+        return i == length && fractionDigits <= 9;
+    }
+
+    /**
+     * ISO_LOCAL_DATE between start and end, ex: 2020-03-12. Resolved strictly, so the day must exist in the month.
+     */
+    private static boolean isIsoDate(String cell, int start, int end)
+    {
+        int i = start;
+        boolean signed = false;
+        boolean negative = false;
+        if(i < end && (cell.charAt(i) == '+' || cell.charAt(i) == '-'))
+        {
+            signed = true;
+            negative = cell.charAt(i) == '-';
+            i++;
+        }
+        int yearStart = i;
+        long year = 0;
+        while(i < end && isDigit(cell.charAt(i)) && i - yearStart < 10)
+        {
+            year = year * 10 + (cell.charAt(i) - '0');
+            i++;
+        }
+        int yearDigits = i - yearStart;
+        //four digits without a sign, more than four only with a sign
+        if(yearDigits < 4 || (yearDigits > 4 && !signed) || (signed && !negative && yearDigits == 4))
+        {
+            return false;
+        }
+        if(year > 999_999_999)
+        {
+            return false;
+        }
+        if(i + 6 != end || cell.charAt(i) != '-' || cell.charAt(i + 3) != '-')
+        {
+            return false;
+        }
+        if(!twoDigitsInRange(cell, i + 1, 12) || !twoDigitsInRange(cell, i + 4, 31))
+        {
+            return false;
+        }
+        int month = (cell.charAt(i + 1) - '0') * 10 + (cell.charAt(i + 2) - '0');
+        int day = (cell.charAt(i + 4) - '0') * 10 + (cell.charAt(i + 5) - '0');
+        if(month == 0 || day == 0)
+        {
+            return false;
+        }
+        return day <= monthLength(negative ? -year : year, month);
+    }
+
+    private static boolean twoDigitsInRange(String cell, int i, int max)
+    {
+        if(i + 1 >= cell.length() || !isDigit(cell.charAt(i)) || !isDigit(cell.charAt(i + 1)))
+        {
+            return false;
+        }
+        return (cell.charAt(i) - '0') * 10 + (cell.charAt(i + 1) - '0') <= max;
+    }
+
+    private static int monthLength(long year, int month)
+    {
+        switch(month)
+        {
+            case 2:
+                return Year.isLeap(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private static boolean isDigit(char c)
+    {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isTypeSuffix(char c)
+    {
+        return c == 'f' || c == 'F' || c == 'd' || c == 'D';
+    }
+
+    /**
+     * Lexical equivalent of DateTimeFormatter.ofPattern(pattern) with the default SMART resolver, for patterns made of the letters
+     * y, M, d, H, m, s separated by literals.
+     */
+    private static final class DatePattern {
+
+        private final char[] letters;
+
+        private final int[] counts;
+
+        private DatePattern(char[] letters, int[] counts) {
+            this.letters = letters;
+            this.counts = counts;
+        }
+
+        static DatePattern compile(String pattern) {
+            int tokens = 0;
+            for(int i = 0; i < pattern.length(); i++)
+            {
+                if(i == 0 || pattern.charAt(i) != pattern.charAt(i - 1) || !Character.isLetter(pattern.charAt(i)))
+                {
+                    tokens++;
+                }
+            }
+            char[] letters = new char[tokens];
+            int[] counts = new int[tokens];
+            int token = -1;
+            for(int i = 0; i < pattern.length(); i++)
+            {
+                char c = pattern.charAt(i);
+                if(token >= 0 && Character.isLetter(c) && letters[token] == c)
+                {
+                    counts[token]++;
+                }
+                else
+                {
+                    token++;
+                    letters[token] = c;
+                    counts[token] = 1;
+                }
+            }
+            return new DatePattern(letters, counts);
+        }
+
+        boolean matches(String cell) {
+            int length = cell.length();
+            int i = 0;
+            long year = -1;
+            int month = -1;
+            int day = -1;
+            long hour = 0;
+            long minuteAndSecond = 0;
+
+            for(int t = 0; t < letters.length; t++)
+            {
+                char letter = letters[t];
+                if(!Character.isLetter(letter))
+                {
+                    if(i >= length || cell.charAt(i) != letter)
+                    {
+                        return false;
+                    }
+                    i++;
+                    continue;
+                }
+
+                int count = counts[t];
+                //variable width for one letter fields, fixed width otherwise. A yyyy year longer than four digits needs a + sign
+                int minWidth = count == 1 ? 1 : count;
+                int maxWidth = count == 1 ? 19 : count;
+                if(count == 4 && i < length && cell.charAt(i) == '+')
+                {
+                    i++;
+                    minWidth = 5;
+                    maxWidth = 19;
+                }
+                int start = i;
+                long value = 0;
+                while(i < length && isDigit(cell.charAt(i)) && i - start < maxWidth)
+                {
+                    if(value < 1_000_000_000_000L)
+                    {
+                        value = value * 10 + (cell.charAt(i) - '0');
+                    }
+                    i++;
+                }
+                if(i - start < minWidth)
+                {
+                    return false;
+                }
+
+                switch(letter)
+                {
+                    case 'y':
+                        if(count == 2)
+                        {
+                            value += 2000; //reduced two digit year
+                        }
+                        else if(value < 1 || value > 999_999_999)
+                        {
+                            return false;
+                        }
+                        year = value;
+                        break;
+                    case 'M':
+                        if(value < 1 || value > 12)
+                        {
+                            return false;
+                        }
+                        month = (int) value;
+                        break;
+                    case 'd':
+                        if(value < 1 || value > 31)
+                        {
+                            return false;
+                        }
+                        day = (int) value;
+                        break;
+                    case 'H':
+                        if(value > 24)
+                        {
+                            return false;
+                        }
+                        hour = value;
+                        break;
+                    case 'm':
+                    case 's':
+                        if(value > 59)
+                        {
+                            return false;
+                        }
+                        minuteAndSecond += value;
+                        break;
+                    default:
+                        return false;
+                }
+            }
+            //SMART resolution moves days past the end of the month back to the last day, so only the ranges above are checked.
+            //It also reads 24:00 as midnight at the end of the day
+            if(hour == 24 && minuteAndSecond != 0)
+            {
+                return false;
+            }
+            return i == length && year != -1 && month != -1 && day != -1;
+        }
+    }
+}
@@ -1,18 +1,20 @@
-import java.util.List;
-
 class ColumnCSV {
     private String columnName;
 
     private Integer columnIndex;
 
-    private List<String> columnStringArray;
+    //streaming datatype inference state of the column
+    private ColumnTypeInference typeInference;
 
     private Object columnDataType;
 
-    ColumnCSV(String columnName, Integer columnIndex, List<String> columnStringArray) {
+    //DateTimeFormatter pattern of LocalDate/LocalDateTime columns, "" otherwise
+    private String columnDateFormat = "";
+
+    ColumnCSV(String columnName, Integer columnIndex, ColumnTypeInference typeInference) {
         this.columnName = columnName;
         this.columnIndex = columnIndex;
-        this.columnStringArray = columnStringArray;
+        this.typeInference = typeInference;
     }
 
 
@@ -40,12 +42,20 @@ class ColumnCSV {
         this.columnDataType = columnDataType.toString().substring(columnDataType.toString().lastIndexOf("." ) + 1);
     }
 
-    public List<String> getColumnStringArray() {
-        return columnStringArray;
+    public String getColumnDateFormat() {
+        return columnDateFormat;
+    }
+
+    public void setColumnDateFormat(String columnDateFormat) {
+        this.columnDateFormat = columnDateFormat;
+    }
+
+    public ColumnTypeInference getTypeInference() {
+        return typeInference;
     }
 
-    public void setColumnStringArray(List<String> columnStringArray) {
-        this.columnStringArray = columnStringArray;
+    public void setTypeInference(ColumnTypeInference typeInference) {
+        this.typeInference = typeInference;
     }
 
     @Override
@@ -53,8 +63,8 @@ class ColumnCSV {
         return "ColumnCSV{" +
                 "columnName='" + columnName + '\'' +
                 ", columnIndex=" + columnIndex +
-                ", columnStringArray=" + columnStringArray +
                 ", columnDataType=" + columnDataType +
+                ", columnDateFormat='" + columnDateFormat + '\'' +
                 '}';
     }
 }
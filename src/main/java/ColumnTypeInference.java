@@ -0,0 +1,178 @@
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Streaming datatype inference for a single CSV column. Cells are fed to update() one at a time as rows are read, so only a few fields
+ * of state are kept per column no matter how large the file is.
+ *
+ * Strives to be quick while also guaranteeing that the highest resolution supported datatype is chosen. Once a String cell has been seen
+ * the column can only be a String, isString() becomes true and further cells are ignored.
+ */
+class ColumnTypeInference {
+
+    //classes seen so far, the column type is decided from this set
+    private final HashSet<Class> potentialColumnClass = new HashSet<>();
+
+    private Class cellBestClass = String.class;
+
+    private Class lastSeenCellBestClass = Object.class; //prevent null issue
+
+    private String dtStringFormat = "";
+
+    ColumnTypeInference() {}
+
+    /**
+     * Continue inference from the state left by earlier cells of the column, with no classes seen yet.
+     * @param lastSeenCellBestClass class of the last cell that changed the state, Object.class if there were none.
+     * @param dtStringFormat date/time format detected so far, "" if none.
+     */
+    ColumnTypeInference(Class lastSeenCellBestClass, String dtStringFormat)
+    {
+        this.lastSeenCellBestClass = lastSeenCellBestClass;
+        this.dtStringFormat = dtStringFormat;
+    }
+
+    /**
+     * Update the inferred datatype with the next cell of the column.
+     * @param rawCell cell as read from the CSV.
+     */
+    void update(String rawCell)
+    {
+        if(lastSeenCellBestClass.equals(String.class))
+        {
+            return; //if there is ever a string type cell, have to read it in as string
+        }
+
+        String cell = CSVCellParser.clean(rawCell);
+
+        //a cell of the same kind as the last one changes nothing
+        if(lastSeenCellBestClass.equals(LocalDate.class) && CellClassifier.matchesDateFormat(cell, dtStringFormat))
+        {
+            return;
+        }
+
+        CellClassifier.CellKind kind = CellClassifier.classify(cell);
+        if(lastSeenCellBestClass.equals(Boolean.class))
+        {
+            if(kind == CellClassifier.CellKind.BOOLEAN_WORD || kind == CellClassifier.CellKind.ZERO_ONE)
+            {
+                return;
+            }
+        }
+        else if(lastSeenCellBestClass.equals(Integer.class))
+        {
+            if(kind == CellClassifier.CellKind.INTEGER || kind == CellClassifier.CellKind.ZERO_ONE)
+            {
+                return;
+            }
+        }
+        else if(lastSeenCellBestClass.equals(Double.class))
+        {
+            if(kind == CellClassifier.CellKind.DOUBLE)
+            {
+                return;
+            }
+        }
+        else if(lastSeenCellBestClass.equals(LocalDateTime.class))
+        {
+            if(kind == CellClassifier.CellKind.DATE_TIME_ISO || kind == CellClassifier.CellKind.DATE_TIME_MDY_HM)
+            {
+                return;
+            }
+        }
+
+        cellBestClass = kind.getType();
+        if(kind.getFormat() != null)
+        {
+            dtStringFormat = kind.getFormat();
+        }
+
+        lastSeenCellBestClass = cellBestClass;
+        potentialColumnClass.add(cellBestClass);
+    }
+
+    /**
+     * @return true if the column can only be read in as a String, so no further cells need to be checked.
+     */
+    boolean isString()
+    {
+        return lastSeenCellBestClass.equals(String.class);
+    }
+
+    /**
+     * Account for cells of the column that were typed elsewhere, ex: by a ColumnTypeSummary of a later range of rows.
+     * @param classes classes seen in those cells.
+     * @param lastSeenCellBestClass state after those cells.
+     * @param dtStringFormat date/time format after those cells.
+     */
+    void advance(Set<Class> classes, Class lastSeenCellBestClass, String dtStringFormat)
+    {
+        potentialColumnClass.addAll(classes);
+        this.lastSeenCellBestClass = lastSeenCellBestClass;
+        this.dtStringFormat = dtStringFormat;
+    }
+
+    /**
+     * @return class of the last cell that changed the state, Object.class if no cells have been seen.
+     */
+    Class getLastSeenClass()
+    {
+        return lastSeenCellBestClass;
+    }
+
+    /**
+     * @return classes seen so far.
+     */
+    Set<Class> getPotentialColumnClasses()
+    {
+        return potentialColumnClass;
+    }
+
+    /**
+     * @return date/time format detected for the column, "" for ISO date times and non date columns.
+     */
+    String getDateFormat()
+    {
+        return dtStringFormat;
+    }
+
+    /**
+     * @return Class of the highest resolution supported datatype for the cells seen so far.
+     */
+    Object getColumnDataType()
+    {
+        if(potentialColumnClass.contains(String.class))
+        {
+            return String.class;
+        }
+        else if(potentialColumnClass.contains(LocalDateTime.class) && !(potentialColumnClass.contains(LocalDate.class)) && !(potentialColumnClass.contains(Integer.class)) && !(potentialColumnClass.contains(Double.class) && !(potentialColumnClass.contains(Boolean.class))))
+        {
+            return LocalDateTime.class;
+        }
+        else if(!(potentialColumnClass.contains(LocalDateTime.class)) && (potentialColumnClass.contains(LocalDate.class)) && !(potentialColumnClass.contains(Integer.class)) && !(potentialColumnClass.contains(Double.class) && !(potentialColumnClass.contains(Boolean.class))))
+        {
+            return LocalDate.class;
+        }
+        else if((!(potentialColumnClass.contains(LocalDateTime.class)) &&  !potentialColumnClass.contains(LocalDate.class) && !(potentialColumnClass.contains(Integer.class)) && !(potentialColumnClass.contains(Double.class)) && (potentialColumnClass.contains(Boolean.class))))
+        {
+            return Boolean.class;
+        }
+        else if(!(potentialColumnClass.contains(LocalDateTime.class)) && !potentialColumnClass.contains(Boolean.class) && !(potentialColumnClass.contains(LocalDate.class)) && ((potentialColumnClass.contains(Integer.class) || potentialColumnClass.contains(Double.class))))
+        {
+            if(potentialColumnClass.contains(Double.class))
+            {
+                return Double.class;
+            }
+            else
+            {
+                return Integer.class;
+            }
+        }
+        else
+        {
+            return String.class; //safety
+        }
+    }
+}
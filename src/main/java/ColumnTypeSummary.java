@@ -0,0 +1,268 @@
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Datatype inference of one column over one range of rows, so that ranges of a file can be typed independently and in parallel.
+ *
+ * ColumnTypeInference depends on the order of the cells: whether a cell changes the state depends on the class of the last cell seen, and
+ * on the date format detected so far. A summary therefore records the outcome of its range (classes seen, class of the last cell, date
+ * format) for every state the column can be in when the range begins. Summaries of consecutive ranges combine with then() into the summary
+ * of both, in any grouping, so they can be reduced on the fork-join pool. Applying the summary of the whole file to a new
+ * ColumnTypeInference gives exactly the result of typing every cell in order.
+ *
+ * While a range is typed, one ColumnTypeInference runs from each entry state. Runs that reach the same state behave the same from then on
+ * and are merged, so most columns only run one after their first few cells.
+ */
+final class ColumnTypeSummary {
+
+    //entry states: no cells yet, the last cell of each class, and a LocalDate cell of each format
+    private static final Class[] ENTRY_CLASSES;
+
+    private static final String[] ENTRY_FORMATS;
+
+    static {
+        ArrayList<Class> classes = new ArrayList<>();
+        ArrayList<String> formats = new ArrayList<>();
+        for(Class c: new Class[]{Object.class, Boolean.class, Integer.class, Double.class, LocalDateTime.class})
+        {
+            classes.add(c);
+            formats.add("");
+        }
+        for(CellClassifier.CellKind kind: CellClassifier.CellKind.values())
+        {
+            if(kind.getType().equals(LocalDate.class))
+            {
+                classes.add(LocalDate.class);
+                formats.add(kind.getFormat());
+            }
+        }
+        ENTRY_CLASSES = classes.toArray(new Class[0]);
+        ENTRY_FORMATS = formats.toArray(new String[0]);
+    }
+
+    //outcome of the range for each entry state. exitFormats are "" if the range sets no date format
+    private final Set<Class>[] classesSeen;
+
+    private final Class[] exitClasses;
+
+    private final String[] exitFormats;
+
+    //runs of the range being typed, leaves[i] started from entry state i
+    private Run[] leaves;
+
+    private ArrayList<Run> active;
+
+    /**
+     * Create the summary of an empty range. Cells are added with update().
+     */
+    ColumnTypeSummary()
+    {
+        this(ENTRY_CLASSES.length);
+        int entries = ENTRY_CLASSES.length;
+        leaves = new Run[entries];
+        active = new ArrayList<>(entries);
+        for(int i = 0; i < entries; i++)
+        {
+            leaves[i] = new Run(new ColumnTypeInference(ENTRY_CLASSES[i], ENTRY_FORMATS[i]));
+            active.add(leaves[i]);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private ColumnTypeSummary(int entries)
+    {
+        classesSeen = new Set[entries];
+        exitClasses = new Class[entries];
+        exitFormats = new String[entries];
+    }
+
+    /**
+     * Update the summary with the next cell of the range.
+     * @param rawCell cell as read from the CSV.
+     */
+    void update(String rawCell)
+    {
+        for(Run run: active)
+        {
+            run.inference.update(rawCell);
+        }
+        if(active.size() > 1)
+        {
+            mergeRuns();
+        }
+    }
+
+    /**
+     * @return true if the column is a String from every entry state, so no further cell of the range can change the summary.
+     */
+    boolean isString()
+    {
+        for(Run run: active)
+        {
+            if(!run.inference.isString())
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Combine with the summary of the range that follows this one.
+     * @param next summary of the range of rows directly after this range.
+     * @return summary of both ranges.
+     */
+    ColumnTypeSummary then(ColumnTypeSummary next)
+    {
+        finish();
+        next.finish();
+
+        ColumnTypeSummary combined = new ColumnTypeSummary(ENTRY_CLASSES.length);
+        for(int i = 0; i < ENTRY_CLASSES.length; i++)
+        {
+            int nextEntry = entryIndex(exitClasses[i], exitFormats[i]);
+            if(nextEntry < 0)
+            {
+                //String, nothing after this range matters
+                combined.classesSeen[i] = classesSeen[i];
+                combined.exitClasses[i] = exitClasses[i];
+                combined.exitFormats[i] = exitFormats[i];
+                continue;
+            }
+            HashSet<Class> classes = new HashSet<>(classesSeen[i]);
+            classes.addAll(next.classesSeen[nextEntry]);
+            combined.classesSeen[i] = classes;
+            combined.exitClasses[i] = next.exitClasses[nextEntry];
+            combined.exitFormats[i] = next.exitFormats[nextEntry].isEmpty() ? exitFormats[i] : next.exitFormats[nextEntry];
+        }
+        return combined;
+    }
+
+    /**
+     * Account for the range in the inference of the whole column.
+     * @param inference inference of the column, covering every row before this range.
+     */
+    void applyTo(ColumnTypeInference inference)
+    {
+        finish();
+        int entry = entryIndex(inference.getLastSeenClass(), inference.getDateFormat());
+        if(entry < 0)
+        {
+            return; //already a String
+        }
+        String format = exitFormats[entry].isEmpty() ? inference.getDateFormat() : exitFormats[entry];
+        inference.advance(classesSeen[entry], exitClasses[entry], format);
+    }
+
+    /**
+     * @return index of the entry state, or -1 for String.
+     */
+    private static int entryIndex(Class lastSeen, String format)
+    {
+        for(int i = 0; i < ENTRY_CLASSES.length; i++)
+        {
+            if(ENTRY_CLASSES[i].equals(lastSeen) && (!lastSeen.equals(LocalDate.class) || ENTRY_FORMATS[i].equals(format)))
+            {
+                return i;
+            }
+        }
+        if(lastSeen.equals(LocalDate.class))
+        {
+            throw new IllegalStateException(String.format("Unknown date format %s. ", format));
+        }
+        return -1;
+    }
+
+    /**
+     * Replace runs that are in the same state with one run continuing from that state.
+     */
+    private void mergeRuns()
+    {
+        ArrayList<Run> merged = new ArrayList<>(active.size());
+        ArrayList<Run> parents = new ArrayList<>();
+        for(Run run: active)
+        {
+            int same = -1;
+            for(int i = 0; i < merged.size() && same < 0; i++)
+            {
+                if(sameState(merged.get(i).inference, run.inference))
+                {
+                    same = i;
+                }
+            }
+            if(same < 0)
+            {
+                merged.add(run);
+                continue;
+            }
+
+            Run parent = merged.get(same);
+            if(!parents.contains(parent))
+            {
+                Class lastSeen = run.inference.getLastSeenClass();
+                parent = new Run(new ColumnTypeInference(lastSeen, lastSeen.equals(LocalDate.class) ? run.inference.getDateFormat() : ""));
+                merged.get(same).parent = parent;
+                merged.set(same, parent);
+                parents.add(parent);
+            }
+            run.parent = parent;
+        }
+        active = merged;
+    }
+
+    private static boolean sameState(ColumnTypeInference a, ColumnTypeInference b)
+    {
+        return a.getLastSeenClass().equals(b.getLastSeenClass())
+                && (!a.getLastSeenClass().equals(LocalDate.class) || a.getDateFormat().equals(b.getDateFormat()));
+    }
+
+    /**
+     * Collect the outcome of every entry state from the runs, once the range has been typed.
+     */
+    private void finish()
+    {
+        if(leaves == null)
+        {
+            return;
+        }
+        for(int i = 0; i < leaves.length; i++)
+        {
+            HashSet<Class> classes = new HashSet<>();
+            String format = "";
+            Run run = leaves[i];
+            Class exitClass = run.inference.getLastSeenClass();
+            while(run != null)
+            {
+                classes.addAll(run.inference.getPotentialColumnClasses());
+                if(!run.inference.getDateFormat().isEmpty())
+                {
+                    format = run.inference.getDateFormat();
+                }
+                exitClass = run.inference.getLastSeenClass();
+                run = run.parent;
+            }
+            classesSeen[i] = classes;
+            exitClasses[i] = exitClass;
+            exitFormats[i] = format;
+        }
+        leaves = null;
+        active = null;
+    }
+
+    /**
+     * Inference from one state. Once merged, cells are only given to the parent, which continues from the state shared by its children.
+     */
+    private static final class Run {
+
+        private final ColumnTypeInference inference;
+
+        private Run parent;
+
+        Run(ColumnTypeInference inference) {
+            this.inference = inference;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A CSV read with readColumnar(): one CSVColumnVector per column, in the order of the CSV header.
+ *
+ * Columns are named with the java qualified names used for the fields of the generated class: the case is kept, whitespace and symbols
+ * are removed, % becomes pct and numbers are spelled out, ex: "modelyear" for "model year", "TotalFatpctDailyValue" for
+ * "Total Fat (% Daily Value)".
+ */
+public final class ColumnarCSV {
+
+    private final CSVColumnVector[] columns;
+
+    ColumnarCSV(CSVColumnVector[] columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * @return number of rows, not counting the header.
+     */
+    public int getRowCount() {
+        return columns.length == 0 ? 0 : columns[0].size();
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    public List<String> getColumnNames() {
+        ArrayList<String> names = new ArrayList<>(columns.length);
+        for(CSVColumnVector column: columns)
+        {
+            names.add(column.getName());
+        }
+        return Collections.unmodifiableList(names);
+    }
+
+    public CSVColumnVector getColumn(int index) {
+        return columns[index];
+    }
+
+    /**
+     * @param name java qualified name of the column.
+     * @throws IllegalArgumentException if there is no column of that name.
+     */
+    public CSVColumnVector getColumn(String name) {
+        for(CSVColumnVector column: columns)
+        {
+            if(column.getName().equals(name))
+            {
+                return column;
+            }
+        }
+        throw new IllegalArgumentException(String.format("No column %s in the CSV. ", name));
+    }
+
+    public CSVColumnVector.IntVector getIntColumn(String name) {
+        return getColumn(name, CSVColumnVector.IntVector.class);
+    }
+
+    public CSVColumnVector.DoubleVector getDoubleColumn(String name) {
+        return getColumn(name, CSVColumnVector.DoubleVector.class);
+    }
+
+    public CSVColumnVector.BooleanVector getBooleanColumn(String name) {
+        return getColumn(name, CSVColumnVector.BooleanVector.class);
+    }
+
+    public CSVColumnVector.LocalDateVector getLocalDateColumn(String name) {
+        return getColumn(name, CSVColumnVector.LocalDateVector.class);
+    }
+
+    public CSVColumnVector.LocalDateTimeVector getLocalDateTimeColumn(String name) {
+        return getColumn(name, CSVColumnVector.LocalDateTimeVector.class);
+    }
+
+    public CSVColumnVector.StringVector getStringColumn(String name) {
+        return getColumn(name, CSVColumnVector.StringVector.class);
+    }
+
+    private <V extends CSVColumnVector> V getColumn(String name, Class<V> vectorClass) {
+        CSVColumnVector column = getColumn(name);
+        if(!vectorClass.isInstance(column))
+        {
+            throw new IllegalArgumentException(String.format("Column %s is a %s, not a %s. ", name,
+                    column.getClass().getSimpleName(), vectorClass.getSimpleName()));
+        }
+        return vectorClass.cast(column);
+    }
+}
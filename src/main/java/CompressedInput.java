@@ -0,0 +1,196 @@
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Reads gzip, zip and zlib deflate compressed CSVs as if they were plain CSVs, so compressed exports do not need to be decompressed to a
+ * temporary file first.
+ *
+ * Gzip and zip are detected from the first bytes of the input, not from the file name, so the same applies to files and URLs. A zip is read
+ * from its first file entry. zlib is only tried for names ending in .zz or .deflate: its two byte header can also be plain text, ex: a
+ * header cell starting with x^. Decompression runs on a thread of its own, a few chunks ahead of the reader, so it overlaps with parsing
+ * instead of adding to it. Inputs that are not compressed are returned as they are.
+ */
+final class CompressedInput extends InputStream {
+
+    private static final int CHUNK_BYTES = 64 * 1024;
+
+    //chunks decompressed ahead of the reader
+    private static final int CHUNKS_AHEAD = 8;
+
+    private static final byte[] END = new byte[0];
+
+    //second byte of a zlib header, by compression level
+    private static final String ZLIB_LEVELS = "\u0001\u005E\u009C\u00DA";
+
+    private static final Pattern ZLIB_NAME = Pattern.compile("(?i).*\\.(zz|deflate)$");
+
+    private final BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>(CHUNKS_AHEAD);
+
+    private final Thread decompressor;
+
+    private volatile IOException failure;
+
+    private byte[] chunk = END;
+
+    private int position = 0;
+
+    private boolean ended = false;
+
+    private CompressedInput(InputStream decompressed) {
+        this.decompressor = new Thread(() -> decompress(decompressed), "automaticcsv-decompress");
+        this.decompressor.setDaemon(true);
+        this.decompressor.start();
+    }
+
+    /**
+     * @param in input, closed with the returned stream.
+     * @param name file name or URL path of the input, to allow zlib.
+     * @return the decompressed input if it starts with the magic number of gzip, zip or zlib, else the input itself.
+     * @throws IOException if the input cannot be read, or is a zip with no file in it.
+     */
+    static InputStream open(InputStream in, String name) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in);
+        buffered.mark(4);
+        byte[] magic = new byte[4];
+        int length = buffered.readNBytes(magic, 0, magic.length);
+        buffered.reset();
+
+        switch (format(magic, length, name))
+        {
+            case "gzip":
+                return new CompressedInput(new GZIPInputStream(buffered, CHUNK_BYTES));
+            case "zip":
+                ZipInputStream zip = new ZipInputStream(buffered);
+                ZipEntry entry;
+                while((entry = zip.getNextEntry()) != null && entry.isDirectory())
+                {
+                    //skip directories to the first file
+                }
+                if(entry == null)
+                {
+                    zip.close();
+                    throw new IOException("Zip file has no CSV in it. ");
+                }
+                return new CompressedInput(zip);
+            case "zlib":
+                return new CompressedInput(new InflaterInputStream(buffered));
+            default:
+                return buffered;
+        }
+    }
+
+    /**
+     * @return true if the file is compressed, so it cannot be split into byte ranges of rows.
+     */
+    static boolean isCompressed(File file) {
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] magic = new byte[4];
+            return format(magic, in.readNBytes(magic, 0, magic.length), file.getName()).length() > 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    //gzip 1f 8b, zip PK 03 04, zlib 78 then one of the 4 compression levels if named so; empty if not compressed
+    private static String format(byte[] magic, int length, String name) {
+        if(length >= 2 && (magic[0] & 0xFF) == 0x1F && (magic[1] & 0xFF) == 0x8B)
+        {
+            return "gzip";
+        }
+        if(length >= 4 && magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4)
+        {
+            return "zip";
+        }
+        if(length >= 2 && (magic[0] & 0xFF) == 0x78 && ZLIB_LEVELS.indexOf(magic[1] & 0xFF) >= 0
+                && name != null && ZLIB_NAME.matcher(name).matches())
+        {
+            return "zlib";
+        }
+        return "";
+    }
+
+    private void decompress(InputStream decompressed) {
+        try (InputStream in = decompressed) {
+            while(true)
+            {
+                byte[] buffer = new byte[CHUNK_BYTES];
+                //hand over what is decompressed so far rather than waiting for a full chunk, so a slow download is parsed as it arrives
+                int length = in.read(buffer);
+                if(length < 0)
+                {
+                    break;
+                }
+                chunks.put(length == buffer.length ? buffer : Arrays.copyOf(buffer, length));
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            return; //closed by the reader
+        }
+
+        try {
+            chunks.put(END);
+        } catch (InterruptedException e) {
+            //closed by the reader
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        int n = read(one, 0, 1);
+        return n < 0 ? -1 : one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int count) throws IOException {
+        if(count == 0)
+        {
+            return 0;
+        }
+        while(position == chunk.length)
+        {
+            if(ended)
+            {
+                return -1;
+            }
+            try {
+                chunk = chunks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while decompressing the CSV. ");
+            }
+            position = 0;
+            if(chunk == END)
+            {
+                ended = true;
+                if(failure != null)
+                {
+                    throw failure;
+                }
+            }
+        }
+        int n = Math.min(count, chunk.length - position);
+        System.arraycopy(chunk, position, buffer, offset, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public void close() {
+        decompressor.interrupt();
+        chunks.clear();
+    }
+}
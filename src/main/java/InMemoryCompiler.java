@@ -0,0 +1,152 @@
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.security.CodeSource;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiles generated CSV classes without touching the file system.
+ *
+ * The source is handed to javac as a string and the class files are kept in memory by a forwarding JavaFileManager, then defined by a
+ * dedicated ClassLoader whose parent is the loader of AutomaticCSV, so generated classes can use @CSVField, CSVRowMapper, etc. This works
+ * from a packaged application with a read-only jar and no build directory, but still needs a JDK at runtime.
+ *
+ * Compiled classes are kept for the life of the JVM, so each CSV class is only compiled once.
+ */
+final class InMemoryCompiler {
+
+    private static final Map<String, Class<?>> COMPILED_CLASSES = new ConcurrentHashMap<>();
+
+    private InMemoryCompiler() {}
+
+    /**
+     * @return class compiled earlier by this JVM, or null if there is none.
+     */
+    static Class<?> getCompiledClass(String className) {
+        return COMPILED_CLASSES.get(className);
+    }
+
+    /**
+     * Compile and load a generated class.
+     * @param className name of the top level class in the source.
+     * @param source java source of the class.
+     * @return the loaded class, or null if it could not be compiled.
+     */
+    static Class<?> compile(String className, String source) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if(compiler == null)
+        {
+            System.out.println("ERROR: No Java compiler available. Generating CSV classes at runtime requires a JDK. ");
+            return null;
+        }
+
+        Map<String, ByteArrayOutputStream> classFiles = new ConcurrentHashMap<>();
+        StandardJavaFileManager standardFileManager = compiler.getStandardFileManager(null, null, null);
+        ForwardingJavaFileManager<StandardJavaFileManager> fileManager = new ForwardingJavaFileManager<StandardJavaFileManager>(standardFileManager) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String name, JavaFileObject.Kind kind, FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create(String.format("mem:///%s%s", name.replace('.', '/'), kind.extension)), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        ByteArrayOutputStream classFile = new ByteArrayOutputStream();
+                        classFiles.put(name, classFile);
+                        return classFile;
+                    }
+                };
+            }
+        };
+
+        JavaFileObject sourceFile = new SimpleJavaFileObject(URI.create(String.format("string:///%s%s", className, JavaFileObject.Kind.SOURCE.extension)),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+
+        boolean success = compiler.getTask(null, fileManager, null, Arrays.asList("-classpath", classPath()), null,
+                Collections.singletonList(sourceFile)).call();
+        try {
+            fileManager.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        if(!success)
+        {
+            System.out.println(String.format("ERROR: Generated Class %s Failed to Compile. ", className));
+            return null;
+        }
+
+        Map<String, byte[]> classBytes = new ConcurrentHashMap<>();
+        for(Map.Entry<String, ByteArrayOutputStream> classFile: classFiles.entrySet())
+        {
+            classBytes.put(classFile.getKey(), classFile.getValue().toByteArray());
+        }
+
+        try {
+            Class<?> compiled = new GeneratedClassLoader(InMemoryCompiler.class.getClassLoader(), classBytes).loadClass(className);
+            COMPILED_CLASSES.put(className, compiled);
+            return compiled;
+        } catch (ClassNotFoundException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Class path of the application, plus the location AutomaticCSV was loaded from in case it is not on it (ex: nested jars).
+     */
+    private static String classPath() {
+        String classPath = System.getProperty("java.class.path", "");
+        CodeSource codeSource = InMemoryCompiler.class.getProtectionDomain().getCodeSource();
+        if(codeSource != null && codeSource.getLocation() != null)
+        {
+            try {
+                String library = new File(codeSource.getLocation().toURI()).getPath();
+                if(!Arrays.asList(classPath.split(File.pathSeparator)).contains(library))
+                {
+                    classPath = classPath.isEmpty() ? library : classPath + File.pathSeparator + library;
+                }
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                //not a file location, rely on the class path
+            }
+        }
+        return classPath;
+    }
+
+    /**
+     * Defines the classes of one compilation, ex: the CSV class and its nested RowMapper and Comparators.
+     */
+    private static final class GeneratedClassLoader extends ClassLoader {
+
+        private final Map<String, byte[]> classBytes;
+
+        GeneratedClassLoader(ClassLoader parent, Map<String, byte[]> classBytes) {
+            super(parent);
+            this.classBytes = classBytes;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            byte[] bytes = classBytes.get(name);
+            if(bytes == null)
+            {
+                throw new ClassNotFoundException(name);
+            }
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Binds CSV records to a CSV class that has no generated CSVRowMapper (ex: classes generated by older versions of AutomaticCSV).
+ *
+ * The @CSVConstructor is resolved to a MethodHandle and the cell converter of every @CSVField, including the formatter compiled from
+ * its format, is chosen once per class. Binding to a header row only reorders the converters, so repeated reads of the same class do
+ * no reflective lookups.
+ */
+final class MethodHandleRowBinder {
+
+    private static final ClassValue<MethodHandleRowBinder> BINDERS = new ClassValue<MethodHandleRowBinder>() {
+        @Override
+        protected MethodHandleRowBinder computeValue(Class<?> type) {
+            return new MethodHandleRowBinder(type);
+        }
+    };
+
+    /**
+     * The @CSVConstructor, taking an Object[] of the parsed cells.
+     */
+    private final MethodHandle constructor;
+
+    private final int parameterCount;
+
+    /**
+     * Cell converter of every @CSVField, by field name.
+     */
+    private final Map<String, Function<String, Object>> converters = new HashMap<>();
+
+    /**
+     * String, LocalDate and LocalDateTime fields, whose cells are canonicalized by a CSVValueCache per bound mapper.
+     */
+    private final Set<String> cachedFields = new HashSet<>();
+
+    private MethodHandleRowBinder(Class<?> CSVClass) {
+        Constructor<?> quickCSVConstructor = null;
+        for(Constructor<?> c: CSVClass.getConstructors())
+        {
+            if(c.isAnnotationPresent(CSVConstructor.class))
+            {
+                quickCSVConstructor = c;
+            }
+        }
+        if(quickCSVConstructor == null)
+        {
+            throw new IllegalArgumentException(String.format("Class %s has no @CSVConstructor annotated constructor. ", CSVClass.getName()));
+        }
+
+        try {
+            parameterCount = quickCSVConstructor.getParameterCount();
+            constructor = MethodHandles.publicLookup().unreflectConstructor(quickCSVConstructor)
+                    .asSpreader(Object[].class, parameterCount)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException(String.format("@CSVConstructor of class %s is not accessible. ", CSVClass.getName()), e);
+        }
+
+        for(Field f: CSVClass.getDeclaredFields())
+        {
+            if(f.isAnnotationPresent(CSVField.class))
+            {
+                CSVField field = f.getAnnotation(CSVField.class);
+                converters.put(f.getName(), converterFor(f.getType(), CSVCellParser.formatter(field.format()), field.nullable()));
+                if(f.getType().equals(String.class) || f.getType().equals(LocalDate.class) || f.getType().equals(LocalDateTime.class))
+                {
+                    cachedFields.add(f.getName());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the binder of the CSV class, created on first use.
+     */
+    static MethodHandleRowBinder forClass(Class<?> CSVClass) {
+        return BINDERS.get(CSVClass);
+    }
+
+    /**
+     * Create a row mapper for a CSV whose header row has the given java qualified column names.
+     * @param columnNames java qualified column names, in CSV column order.
+     * @return row mapper passing the converted cells to the @CSVConstructor in CSV column order.
+     */
+    <T> CSVRowMapper<T> bind(String[] columnNames) {
+        @SuppressWarnings("unchecked")
+        Function<String, Object>[] columnConverters = new Function[parameterCount];
+        for(int i = 0; i < columnNames.length && i < parameterCount; i++)
+        {
+            Function<String, Object> converter = converters.get(columnNames[i]);
+            columnConverters[i] = converter != null && cachedFields.contains(columnNames[i]) ? new CSVValueCache<>(converter)::get : converter;
+        }
+        for(int i = 0; i < parameterCount; i++)
+        {
+            if(columnConverters[i] == null)
+            {
+                throw new IllegalArgumentException(String.format("No @CSVField matches column %d of the CSV. ", i));
+            }
+        }
+
+        String[] names = columnNames.clone();
+        return new CSVRowMapper<T>() {
+            @Override
+            public String[] getColumnNames() {
+                return names.clone();
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T mapRow(String[] row) {
+                Object[] parsedRow = new Object[parameterCount];
+                for(int i = 0; i < parameterCount; i++)
+                {
+                    parsedRow[i] = columnConverters[i].apply(row[i]);
+                }
+                try {
+                    return (T) constructor.invokeExact(parsedRow);
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+    }
+
+    private static Function<String, Object> converterFor(Class<?> type, DateTimeFormatter format, boolean nullable) {
+        if(type.equals(Double.class) || type.equals(double.class))
+        {
+            return nullable ? CSVCellParser::parseNullableDouble : CSVCellParser::parseDouble;
+        }
+        else if(type.equals(String.class))
+        {
+            return nullable ? CSVCellParser::parseNullableString : CSVCellParser::parseString;
+        }
+        else if(type.equals(Integer.class) || type.equals(int.class))
+        {
+            return nullable ? CSVCellParser::parseNullableInteger : CSVCellParser::parseInteger;
+        }
+        else if(type.equals(LocalDateTime.class))
+        {
+            return cell -> CSVCellParser.parseLocalDateTime(cell, format);
+        }
+        else if(type.equals(Boolean.class) || type.equals(boolean.class))
+        {
+            return nullable ? CSVCellParser::parseNullableBoolean : CSVCellParser::parseBoolean;
+        }
+        else if(type.equals(LocalDate.class))
+        {
+            return cell -> CSVCellParser.parseLocalDate(cell, format);
+        }
+        throw new IllegalArgumentException(String.format("Unsupported @CSVField datatype %s. ", type.getName()));
+    }
+}
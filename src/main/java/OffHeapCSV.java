@@ -0,0 +1,495 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Rows of a CSV read with readOffHeap(), packed into direct ByteBuffer pages outside of the Java heap.
+ *
+ * Every row has the same fixed width layout derived from the datatypes of the columns: a missing bit mask, then 4 bytes per Integer and
+ * LocalDate (epoch day), 8 per Double, 1 per Boolean, 12 per LocalDateTime (epoch second and nanos) and 8 per String. A String holds a
+ * reference into a separate region of length prefixed UTF-8 pages, where values repeated in a column are stored once while the column
+ * cache is enabled (see CSVValueCache). The heap only holds the page objects, so a large file adds almost nothing to garbage collection.
+ *
+ * Empty cells, and cells that are not of the column datatype, are missing. Values are read by row and column index, and classes generated
+ * with setOffHeapView(true) contain a View flyweight that reads its fields this way, with its own Comparators and Predicates.
+ * Direct memory is limited by -XX:MaxDirectMemorySize, which defaults to the maximum heap size. Safe for concurrent reads once returned
+ * by readOffHeap().
+ */
+public final class OffHeapCSV {
+
+    //target size of row and string pages
+    private static final int PAGE_SIZE = 1 << 20;
+
+    /**
+     * Flyweight over the rows of an OffHeapCSV, ex: the View class generated with setOffHeapView(true).
+     */
+    public interface RowView {
+
+        /**
+         * Point the view at a row.
+         */
+        void moveTo(int row);
+    }
+
+    private final String[] columnNames;
+
+    //datatype of every column, ex: "Integer"
+    private final String[] columnTypes;
+
+    //byte offset of every column in a row
+    private final int[] offsets;
+
+    private final int rowWidth;
+
+    private final int rowsPerPage;
+
+    private final ArrayList<ByteBuffer> rowPages = new ArrayList<>();
+
+    private final ArrayList<ByteBuffer> stringPages = new ArrayList<>();
+
+    private int rowCount = 0;
+
+    //parsers of the String and date columns while rows are appended, released by finish()
+    private CSVValueCache<?>[] caches;
+
+    OffHeapCSV(List<ColumnCSV> columns) {
+        int columnCount = columns.size();
+        columnNames = new String[columnCount];
+        columnTypes = new String[columnCount];
+        offsets = new int[columnCount];
+        caches = new CSVValueCache<?>[columnCount];
+
+        //missing bit mask first, one long per 64 columns
+        int offset = 8 * ((columnCount + 63) / 64);
+        for(int i = 0; i < columnCount; i++)
+        {
+            ColumnCSV column = columns.get(i);
+            columnNames[i] = column.getColumnName();
+            columnTypes[i] = boxedType(column.getColumnDataType().toString());
+            offsets[i] = offset;
+            DateTimeFormatter format = CSVCellParser.formatter(column.getColumnDateFormat());
+            switch(columnTypes[i])
+            {
+                case "Integer":
+                    offset += 4;
+                    break;
+                case "Double":
+                    offset += 8;
+                    break;
+                case "Boolean":
+                    offset += 1;
+                    break;
+                case "LocalDate":
+                    caches[i] = new CSVValueCache<>(cell -> CSVCellParser.parseLocalDate(cell, format));
+                    offset += 4;
+                    break;
+                case "LocalDateTime":
+                    caches[i] = new CSVValueCache<>(cell -> CSVCellParser.parseLocalDateTime(cell, format));
+                    offset += 12;
+                    break;
+                default:
+                    columnTypes[i] = "String";
+                    caches[i] = new CSVValueCache<>(this::storeString);
+                    offset += 8;
+            }
+        }
+        rowWidth = Math.max(offset, 1);
+        rowsPerPage = Math.max(1, PAGE_SIZE / rowWidth);
+    }
+
+    //fields of classes generated with setPrimitiveFields(true) are primitive
+    private static String boxedType(String type) {
+        switch(type)
+        {
+            case "int":
+                return "Integer";
+            case "double":
+                return "Double";
+            case "boolean":
+                return "Boolean";
+            default:
+                return type;
+        }
+    }
+
+    /**
+     * @return number of rows, not counting the header.
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    /**
+     * @return java qualified names of the columns, as in the generated class.
+     */
+    public List<String> getColumnNames() {
+        return Collections.unmodifiableList(Arrays.asList(columnNames));
+    }
+
+    /**
+     * @return datatype of the column, ex: "Integer".
+     */
+    public String getColumnType(int column) {
+        return columnTypes[column];
+    }
+
+    /**
+     * @return bytes used by every row.
+     */
+    public int getRowWidth() {
+        return rowWidth;
+    }
+
+    /**
+     * Find a column, checking its datatype. Used by generated views to resolve their columns once.
+     * @param name java qualified name of the column.
+     * @param type expected datatype, ex: "Integer".
+     * @return index of the column.
+     * @throws IllegalArgumentException if there is no column of that name and datatype.
+     */
+    public int getColumnIndex(String name, String type) {
+        for(int i = 0; i < columnNames.length; i++)
+        {
+            if(columnNames[i].equals(name))
+            {
+                if(!columnTypes[i].equals(boxedType(type)))
+                {
+                    throw new IllegalArgumentException(String.format("Column %s is a %s column, not %s. ", name, columnTypes[i], type));
+                }
+                return i;
+            }
+        }
+        throw new IllegalArgumentException(String.format("No column %s in the CSV. ", name));
+    }
+
+    public boolean isMissing(int row, int column) {
+        ByteBuffer page = page(row);
+        long word = page.getLong(base(row) + 8 * (column >>> 6));
+        return (word & (1L << column)) != 0;
+    }
+
+    /**
+     * @return value of an Integer column, 0 if it is missing.
+     */
+    public int getInt(int row, int column) {
+        return page(row).getInt(base(row) + offsets[column]);
+    }
+
+    /**
+     * @return value of a Double column, 0 if it is missing.
+     */
+    public double getDouble(int row, int column) {
+        return page(row).getDouble(base(row) + offsets[column]);
+    }
+
+    /**
+     * @return value of a Boolean column, false if it is missing.
+     */
+    public boolean getBoolean(int row, int column) {
+        return page(row).get(base(row) + offsets[column]) != 0;
+    }
+
+    /**
+     * @return value of a LocalDate column, null if it is missing.
+     */
+    public LocalDate getLocalDate(int row, int column) {
+        if(isMissing(row, column))
+        {
+            return null;
+        }
+        return LocalDate.ofEpochDay(page(row).getInt(base(row) + offsets[column]));
+    }
+
+    /**
+     * @return value of a LocalDateTime column, null if it is missing.
+     */
+    public LocalDateTime getLocalDateTime(int row, int column) {
+        if(isMissing(row, column))
+        {
+            return null;
+        }
+        ByteBuffer page = page(row);
+        int position = base(row) + offsets[column];
+        return LocalDateTime.ofEpochSecond(page.getLong(position), page.getInt(position + 8), ZoneOffset.UTC);
+    }
+
+    /**
+     * @return value of a String column, null if it is missing.
+     */
+    public String getString(int row, int column) {
+        if(isMissing(row, column))
+        {
+            return null;
+        }
+        long reference = page(row).getLong(base(row) + offsets[column]);
+        ByteBuffer stringPage = stringPages.get((int) (reference >>> 32));
+        int position = (int) reference;
+        byte[] bytes = new byte[stringPage.getInt(position)];
+        //a duplicate, so concurrent reads do not share a position
+        ByteBuffer value = stringPage.duplicate();
+        value.position(position + 4);
+        value.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return value of any column as its datatype (ex: Integer, LocalDate), or null if it is missing.
+     */
+    public Object getObject(int row, int column) {
+        if(isMissing(row, column))
+        {
+            return null;
+        }
+        switch(columnTypes[column])
+        {
+            case "Integer":
+                return getInt(row, column);
+            case "Double":
+                return getDouble(row, column);
+            case "Boolean":
+                return getBoolean(row, column);
+            case "LocalDate":
+                return getLocalDate(row, column);
+            case "LocalDateTime":
+                return getLocalDateTime(row, column);
+            default:
+                return getString(row, column);
+        }
+    }
+
+    /**
+     * @param views creates a view over this CSV, ex: Menu.View::new.
+     * @param predicate generated Predicate of the view, ex: Menu.View.CaloriesIsGreaterThanOrEqualTo(500).
+     * @return rows matching the predicate, in file order.
+     */
+    public <V extends RowView> int[] filterRows(Function<OffHeapCSV, V> views, Predicate<? super V> predicate) {
+        V view = views.apply(this);
+        int[] matches = new int[16];
+        int matchCount = 0;
+        for(int row = 0; row < rowCount; row++)
+        {
+            view.moveTo(row);
+            if(predicate.test(view))
+            {
+                if(matchCount == matches.length)
+                {
+                    matches = Arrays.copyOf(matches, matchCount * 2);
+                }
+                matches[matchCount++] = row;
+            }
+        }
+        return Arrays.copyOf(matches, matchCount);
+    }
+
+    /**
+     * Sort the rows without moving them. The sort is stable.
+     * @param views creates a view over this CSV, ex: Menu.View::new.
+     * @param comparator generated Comparator of the view, ex: new Menu.View.SortAscendingByCalories().
+     * @return every row, in sorted order.
+     */
+    public <V extends RowView> int[] sortRows(Function<OffHeapCSV, V> views, Comparator<? super V> comparator) {
+        V first = views.apply(this);
+        V second = views.apply(this);
+        int[] rows = new int[rowCount];
+        for(int i = 0; i < rowCount; i++)
+        {
+            rows[i] = i;
+        }
+        mergeSort(rows, new int[rowCount], 0, rowCount, (a, b) -> {
+            first.moveTo(a);
+            second.moveTo(b);
+            return comparator.compare(first, second);
+        });
+        return rows;
+    }
+
+    private interface RowComparator {
+        int compare(int a, int b);
+    }
+
+    //sorts rows[from, to) through the views, without boxing the row numbers
+    private static void mergeSort(int[] rows, int[] buffer, int from, int to, RowComparator comparator) {
+        if(to - from < 2)
+        {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(rows, buffer, from, middle, comparator);
+        mergeSort(rows, buffer, middle, to, comparator);
+        if(comparator.compare(rows[middle - 1], rows[middle]) <= 0)
+        {
+            return; //already in order
+        }
+        System.arraycopy(rows, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for(int i = from; i < to; i++)
+        {
+            if(right >= to || (left < middle && comparator.compare(buffer[left], buffer[right]) <= 0))
+            {
+                rows[i] = buffer[left++];
+            }
+            else
+            {
+                rows[i] = buffer[right++];
+            }
+        }
+    }
+
+    /**
+     * Append the next row of the CSV.
+     * @param row cells of the record, in CSV column order.
+     */
+    void append(String[] row) {
+        int pageIndex = rowCount / rowsPerPage;
+        if(pageIndex == rowPages.size())
+        {
+            rowPages.add(ByteBuffer.allocateDirect(rowsPerPage * rowWidth)); //zeroed, so nothing is missing yet
+        }
+        ByteBuffer page = rowPages.get(pageIndex);
+        int base = base(rowCount);
+        for(int column = 0; column < columnNames.length; column++)
+        {
+            String cell = column < row.length ? row[column] : "";
+            if(!write(page, base + offsets[column], column, cell))
+            {
+                int word = base + 8 * (column >>> 6);
+                page.putLong(word, page.getLong(word) | (1L << column));
+            }
+        }
+        rowCount++;
+    }
+
+    /**
+     * Release the parsers once every row has been appended.
+     */
+    void finish() {
+        caches = null;
+    }
+
+    /**
+     * Store the value of a cell at its position in the row.
+     * @return false if the cell is missing.
+     */
+    private boolean write(ByteBuffer page, int position, int column, String cell) {
+        switch(columnTypes[column])
+        {
+            case "Integer":
+            {
+                String trimmed = cell.trim();
+                if(trimmed.isEmpty())
+                {
+                    return false;
+                }
+                CellClassifier.CellKind kind = CellClassifier.classify(trimmed);
+                if(kind != CellClassifier.CellKind.INTEGER && kind != CellClassifier.CellKind.ZERO_ONE)
+                {
+                    return false;
+                }
+                page.putInt(position, Integer.parseInt(trimmed));
+                return true;
+            }
+            case "Double":
+            {
+                Double value = CSVCellParser.parseNullableDouble(cell);
+                if(value == null)
+                {
+                    return false;
+                }
+                page.putDouble(position, value);
+                return true;
+            }
+            case "Boolean":
+            {
+                Boolean value = CSVCellParser.parseNullableBoolean(cell);
+                if(value == null)
+                {
+                    return false;
+                }
+                page.put(position, (byte) (value ? 1 : 0));
+                return true;
+            }
+            case "LocalDate":
+            {
+                LocalDate date = (LocalDate) caches[column].get(cell);
+                if(date == null || date.toEpochDay() != (int) date.toEpochDay())
+                {
+                    return false;
+                }
+                page.putInt(position, (int) date.toEpochDay());
+                return true;
+            }
+            case "LocalDateTime":
+            {
+                LocalDateTime dateTime = (LocalDateTime) caches[column].get(cell);
+                if(dateTime == null)
+                {
+                    return false;
+                }
+                page.putLong(position, dateTime.toEpochSecond(ZoneOffset.UTC));
+                page.putInt(position + 8, dateTime.getNano());
+                return true;
+            }
+            default:
+            {
+                Long reference = (Long) caches[column].get(cell);
+                if(reference == null)
+                {
+                    return false;
+                }
+                page.putLong(position, reference);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Copy a String cell into the string region.
+     * @return reference to the copy, page index in the high 32 bits and position in the low 32 bits, or null if the cell is empty.
+     */
+    private Long storeString(String cell) {
+        String trimmed = cell.trim();
+        if(trimmed.isEmpty())
+        {
+            return null;
+        }
+        byte[] bytes = trimmed.getBytes(StandardCharsets.UTF_8);
+        int length = 4 + bytes.length;
+        ByteBuffer page = stringPages.isEmpty() ? null : stringPages.get(stringPages.size() - 1);
+        if(page == null || page.remaining() < length)
+        {
+            page = ByteBuffer.allocateDirect(Math.max(PAGE_SIZE, length));
+            stringPages.add(page);
+        }
+        long reference = ((long) (stringPages.size() - 1) << 32) | page.position();
+        page.putInt(bytes.length);
+        page.put(bytes);
+        return reference;
+    }
+
+    private ByteBuffer page(int row) {
+        if(row < 0 || row >= rowCount)
+        {
+            throw new IndexOutOfBoundsException(String.format("Row %d of a CSV with %d rows. ", row, rowCount));
+        }
+        return rowPages.get(row / rowsPerPage);
+    }
+
+    private int base(int row) {
+        return (row % rowsPerPage) * rowWidth;
+    }
+}
@@ -0,0 +1,209 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Gzip output compressed on all cores, the way pigz does it, for AutoWriteCSV files ending in .gz.
+ *
+ * Written bytes are cut into blocks of BLOCK_BYTES, and every block is deflated on the fork-join pool on its own Deflater, primed with the
+ * last 32K of the block before it so the compression ratio is close to that of one Deflater. Blocks end with a sync flush, so they end on
+ * a byte boundary and can be concatenated as they come back, in order, into one ordinary gzip member: GZIPInputStream, gzip and zcat read
+ * it as usual. The CRC and length of the trailer are computed on the writing thread as bytes are written.
+ */
+final class ParallelGzipOutputStream extends OutputStream {
+
+    private static final int BLOCK_BYTES = 128 * 1024;
+
+    //window of deflate, the most a block can refer back into the block before it
+    private static final int DICTIONARY_BYTES = 32 * 1024;
+
+    //magic number, deflate, no flags, no modification time, no extra flags, unknown OS
+    private static final byte[] HEADER = {0x1F, (byte) 0x8B, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xFF};
+
+    private final OutputStream out;
+
+    //compressed blocks not yet written, in order
+    private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+
+    private final int maxPending = 2 * Runtime.getRuntime().availableProcessors();
+
+    private final CRC32 crc = new CRC32();
+
+    private long size = 0;
+
+    private byte[] block = new byte[BLOCK_BYTES];
+
+    private int blockLength = 0;
+
+    //dictionary of the next block
+    private byte[] previousBlock;
+
+    private int previousLength = 0;
+
+    private boolean finished = false;
+
+    /**
+     * @param out stream of the gzip file, closed with this stream.
+     */
+    ParallelGzipOutputStream(OutputStream out) throws IOException {
+        this.out = out;
+        out.write(HEADER);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if(finished)
+        {
+            throw new IOException("Gzip stream is finished. ");
+        }
+        crc.update(bytes, offset, length);
+        size += length;
+        while(length > 0)
+        {
+            int n = Math.min(length, BLOCK_BYTES - blockLength);
+            System.arraycopy(bytes, offset, block, blockLength, n);
+            blockLength += n;
+            offset += n;
+            length -= n;
+            if(blockLength == BLOCK_BYTES)
+            {
+                compressBlock(false);
+            }
+        }
+    }
+
+    /**
+     * Compress the bytes written so far and write them out, so a reader of the file sees every complete row. Flushing often lowers the
+     * compression ratio.
+     */
+    @Override
+    public void flush() throws IOException {
+        if(!finished)
+        {
+            if(blockLength > 0)
+            {
+                compressBlock(false);
+            }
+            while(!pending.isEmpty())
+            {
+                writeNextBlock();
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Write the last block and the gzip trailer, without closing the underlying stream.
+     */
+    void finish() throws IOException {
+        if(finished)
+        {
+            return;
+        }
+        compressBlock(true);
+        while(!pending.isEmpty())
+        {
+            writeNextBlock();
+        }
+        long checksum = crc.getValue();
+        byte[] trailer = new byte[8];
+        for(int i = 0; i < 4; i++)
+        {
+            trailer[i] = (byte) (checksum >>> (8 * i));
+            trailer[4 + i] = (byte) (size >>> (8 * i)); //length modulo 2^32
+        }
+        out.write(trailer);
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            for(Future<byte[]> block: pending)
+            {
+                block.cancel(true);
+            }
+            out.close();
+        }
+    }
+
+    private void compressBlock(boolean last) throws IOException {
+        byte[] input = block;
+        int inputLength = blockLength;
+        byte[] dictionary = previousBlock;
+        int dictionaryLength = Math.min(previousLength, DICTIONARY_BYTES);
+        int dictionaryOffset = previousLength - dictionaryLength;
+        pending.add(ForkJoinPool.commonPool().submit(() -> deflate(input, inputLength, dictionary, dictionaryOffset, dictionaryLength, last)));
+
+        //blocks are not reused, the block being compressed stays the dictionary of the next one
+        if(inputLength > 0)
+        {
+            previousBlock = input;
+            previousLength = inputLength;
+        }
+        block = new byte[BLOCK_BYTES];
+        blockLength = 0;
+
+        while(pending.size() > maxPending)
+        {
+            writeNextBlock();
+        }
+    }
+
+    private static byte[] deflate(byte[] input, int length, byte[] dictionary, int dictionaryOffset, int dictionaryLength, boolean last) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            if(dictionary != null)
+            {
+                deflater.setDictionary(dictionary, dictionaryOffset, dictionaryLength);
+            }
+            deflater.setInput(input, 0, length);
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 2 + 64);
+            byte[] buffer = new byte[64 * 1024];
+            if(last)
+            {
+                deflater.finish();
+                while(!deflater.finished())
+                {
+                    compressed.write(buffer, 0, deflater.deflate(buffer));
+                }
+            }
+            else
+            {
+                int n;
+                do {
+                    n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    compressed.write(buffer, 0, n);
+                } while(n == buffer.length);
+            }
+            return compressed.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void writeNextBlock() throws IOException {
+        try {
+            out.write(pending.poll().get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing the CSV. ");
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to compress the CSV. ", e.getCause());
+        }
+    }
+}
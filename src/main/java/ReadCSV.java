@@ -1,7 +1,17 @@
 import java.util.ArrayList;
+import java.util.stream.Stream;
 
 public interface ReadCSV {
 
     <csvClass> ArrayList<csvClass> readCSV();
 
+    /**
+     * Read the CSV as a Stream. Implementations that can parse rows lazily should override this; by default the CSV is read in full first.
+     * @return Stream of Objects storing the CSV data, or an empty Stream if the CSV could not be read.
+     */
+    default <csvClass> Stream<csvClass> streamCSV() {
+        ArrayList<csvClass> rows = readCSV();
+        return rows == null ? Stream.empty() : rows.stream();
+    }
+
 }
@@ -0,0 +1,22 @@
+/**
+ * Rows used to determine column datatypes when heuristic typing is enabled with setHeuristicTyping(true).
+ * The number of rows sampled is set with setSampleSize().
+ */
+public enum SamplingStrategy {
+
+    /**
+     * Type the first rows of the file. Fastest, but sorted files may be typed from rows that are not representative of the whole file.
+     */
+    FIRST_ROWS,
+
+    /**
+     * Type a uniform random sample of rows from the whole file. Every row is read, but only sampled rows are typed.
+     */
+    RESERVOIR,
+
+    /**
+     * Type runs of rows taken from evenly spaced byte offsets across the file, seeking directly to each offset. Only the sampled rows
+     * are read, so this is the fastest way to cover a very large file. Hosted CSVs cannot seek and are sampled with RESERVOIR instead.
+     */
+    STRATIFIED
+}
@@ -0,0 +1,281 @@
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Body of a hosted CSV downloaded as several HTTP Range requests at once, read back in order as one stream.
+ *
+ * The first segment is requested with the usual GET, plus a Range header for its bytes. If the server answers 206 Partial Content, the
+ * total length comes from its Content-Range, and the following segments are fetched by a few background connections while the first one
+ * is still being read, so parsing starts with the first bytes rather than after the download. Segments are fetched at most
+ * connections - 1 ahead of the reader, which bounds the memory used to that many segments. If the server ignores the Range header
+ * (200 OK), the body is read as a single stream as before. An empty file has no first byte to send, so a server answers 416 Range Not
+ * Satisfiable to the first Range request; the request is then sent again without a Range header.
+ *
+ * Later segments are requested with If-Range, so a CSV that changes during the download fails the read instead of mixing two versions.
+ */
+final class SegmentedDownload extends InputStream {
+
+    //answer to a Range request past the end of the file, not in HttpURLConnection
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+
+    private final URL url;
+
+    private final HttpURLConnection firstConnection;
+
+    //If-Range of the later segments: a strong ETag, else the Last-Modified date, else null
+    private final String validator;
+
+    private final long length;
+
+    private final long segmentBytes;
+
+    private final int segmentCount;
+
+    private final ExecutorService downloads;
+
+    //segments fetched or being fetched, in order, starting with the one after the current segment
+    private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+
+    private int nextSegmentToFetch;
+
+    private int currentSegment = 0;
+
+    private InputStream current;
+
+    private long currentRemaining;
+
+    private SegmentedDownload(URL url, HttpURLConnection firstConnection, long length, long segmentBytes, int connections) throws IOException {
+        this.url = url;
+        this.firstConnection = firstConnection;
+        this.length = length;
+        this.segmentBytes = segmentBytes;
+        this.segmentCount = (int) ((length + segmentBytes - 1) / segmentBytes);
+
+        String eTag = firstConnection.getHeaderField("ETag");
+        if(eTag != null && !eTag.startsWith("W/"))
+        {
+            this.validator = eTag;
+        }
+        else
+        {
+            this.validator = firstConnection.getHeaderField("Last-Modified");
+        }
+
+        this.current = firstConnection.getInputStream();
+        this.currentRemaining = Math.min(segmentBytes, length);
+
+        this.downloads = Executors.newFixedThreadPool(Math.max(1, connections - 1), runnable -> {
+            Thread thread = new Thread(runnable, "automaticcsv-segment");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.nextSegmentToFetch = 1;
+        for(int i = 1; i < connections; i++)
+        {
+            fetchNextSegment();
+        }
+    }
+
+    /**
+     * Open the body of a URL, downloading it in segments if it is hosted on a server that supports Range requests.
+     * @param connections number of connections used at once, 1 to download as a single stream.
+     * @param segmentBytes bytes requested by each connection.
+     */
+    static InputStream open(URL url, int connections, long segmentBytes) throws IOException {
+        if(!url.getProtocol().equals("http") && !url.getProtocol().equals("https"))
+        {
+            return url.openConnection().getInputStream();
+        }
+        HttpURLConnection connection = connect(url, connections, segmentBytes, request -> {});
+        int status = connection.getResponseCode();
+        if(status != HttpURLConnection.HTTP_OK && status != HttpURLConnection.HTTP_PARTIAL)
+        {
+            connection.disconnect();
+            throw new IOException(String.format("HTTP %d from %s. ", status, url));
+        }
+        return body(url, connection, connections, segmentBytes);
+    }
+
+    /**
+     * Request the first segment only, or the whole body when connections is 1. If the server answers 416, the file is empty, and the
+     * request is sent again without Range.
+     * @param headers sets the other headers of the request, ex: If-None-Match. Called again for the request without Range.
+     * @return connection that has received the status of the answer.
+     */
+    static HttpURLConnection connect(URL url, int connections, long segmentBytes, Consumer<HttpURLConnection> headers) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        if(connections > 1)
+        {
+            connection.setRequestProperty("Range", "bytes=0-" + (segmentBytes - 1));
+        }
+        headers.accept(connection);
+        if(connections > 1 && connection.getResponseCode() == HTTP_RANGE_NOT_SATISFIABLE)
+        {
+            connection.disconnect();
+            connection = (HttpURLConnection) url.openConnection();
+            headers.accept(connection);
+            connection.getResponseCode();
+        }
+        return connection;
+    }
+
+    /**
+     * Body of a connection that answered 200 or 206 to a request made with connect().
+     * @return the body read as a single stream if the server ignored the Range header, else the body downloaded in segments.
+     */
+    static InputStream body(URL url, HttpURLConnection connection, int connections, long segmentBytes) throws IOException {
+        if(connection.getResponseCode() != HttpURLConnection.HTTP_PARTIAL)
+        {
+            return connection.getInputStream();
+        }
+
+        long length = totalLength(connection.getHeaderField("Content-Range"));
+        if(length < 0)
+        {
+            //a partial answer of unknown length cannot be split, ask again for the whole body
+            connection.disconnect();
+            return url.openConnection().getInputStream();
+        }
+        return new SegmentedDownload(url, connection, length, segmentBytes, connections);
+    }
+
+    //ex: "bytes 0-1023/52000" is 52000, -1 if the length is unknown
+    private static long totalLength(String contentRange) {
+        if(contentRange == null || !contentRange.startsWith("bytes 0-"))
+        {
+            return -1;
+        }
+        String total = contentRange.substring(contentRange.lastIndexOf('/') + 1).trim();
+        try {
+            return Long.parseLong(total);
+        } catch (NumberFormatException e) {
+            return -1; //"*"
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        int n = read(one, 0, 1);
+        return n < 0 ? -1 : one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int count) throws IOException {
+        if(count == 0)
+        {
+            return 0;
+        }
+        while(current != null)
+        {
+            if(currentRemaining > 0)
+            {
+                int n = current.read(buffer, offset, (int) Math.min(count, currentRemaining));
+                if(n < 0)
+                {
+                    throw new EOFException(String.format("Segment %d of %s ended early. ", currentSegment, url));
+                }
+                currentRemaining -= n;
+                return n;
+            }
+            nextSegment();
+        }
+        return -1;
+    }
+
+    private void nextSegment() throws IOException {
+        current.close();
+        current = null;
+        if(++currentSegment >= segmentCount)
+        {
+            return;
+        }
+
+        byte[] segment;
+        try {
+            segment = pending.poll().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while downloading " + url, e);
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof IOException)
+            {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+        fetchNextSegment();
+        current = new ByteArrayInputStream(segment);
+        currentRemaining = segment.length;
+    }
+
+    private void fetchNextSegment() {
+        if(nextSegmentToFetch < segmentCount)
+        {
+            int segment = nextSegmentToFetch++;
+            pending.add(downloads.submit(() -> fetchSegment(segment)));
+        }
+    }
+
+    private byte[] fetchSegment(int segment) throws IOException {
+        long first = segment * segmentBytes;
+        long last = Math.min(first + segmentBytes, length) - 1;
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            connection.setRequestProperty("Range", "bytes=" + first + "-" + last);
+            if(validator != null)
+            {
+                connection.setRequestProperty("If-Range", validator);
+            }
+            String expectedRange = String.format("bytes %d-%d/%d", first, last, length);
+            if(connection.getResponseCode() != HttpURLConnection.HTTP_PARTIAL
+                    || !expectedRange.equals(connection.getHeaderField("Content-Range")))
+            {
+                throw new IOException(String.format("%s changed during the download, or stopped answering Range requests. ", url));
+            }
+
+            byte[] bytes = new byte[(int) (last - first + 1)];
+            try (InputStream in = connection.getInputStream()) {
+                int read = 0;
+                while(read < bytes.length)
+                {
+                    int n = in.read(bytes, read, bytes.length - read);
+                    if(n < 0)
+                    {
+                        throw new EOFException(String.format("Segment %d of %s ended early. ", segment, url));
+                    }
+                    read += n;
+                }
+            }
+            return bytes;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for(Future<byte[]> segment: pending)
+        {
+            segment.cancel(true);
+        }
+        pending.clear();
+        downloads.shutdownNow();
+        if(current != null)
+        {
+            current.close();
+            current = null;
+        }
+        firstConnection.disconnect();
+    }
+}
@@ -0,0 +1,228 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Properties;
+
+/**
+ * Local cache of hosted CSVs, so a CSV read from a URL is downloaded once rather than once per pass over it.
+ *
+ * Every URL has a small properties file, named by the SHA-256 of the URL, holding the ETag and Last-Modified validators of the cached copy
+ * and the SHA-256 of its content. The content is stored once per distinct content, named by that hash. A cached copy is revalidated with a
+ * conditional GET (If-None-Match, If-Modified-Since): a 304 reuses it without a download. Content files are touched when used, and the least
+ * recently used are deleted once the cache grows past its size limit.
+ *
+ * Only http and https URLs are cached.
+ */
+final class URLCache {
+
+    private static final String CONTENT_EXTENSION = ".csv";
+
+    private final File directory;
+
+    private final long maxBytes;
+
+    private final int connections;
+
+    private final long segmentBytes;
+
+    /**
+     * @param directory directory of the cache, created if needed.
+     * @param maxBytes total size of cached content above which the least recently used content is evicted.
+     * @param connections connections used at once to download a CSV, see SegmentedDownload.
+     * @param segmentBytes bytes requested by each connection.
+     */
+    URLCache(File directory, long maxBytes, int connections, long segmentBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.connections = connections;
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * @return true if the URL can be cached.
+     */
+    static boolean isCacheable(URL url) {
+        return url.getProtocol().equals("http") || url.getProtocol().equals("https");
+    }
+
+    /**
+     * Make sure the cached copy of a URL is current, downloading it if it is missing or has changed.
+     * @return the cached copy.
+     * @throws IOException if the URL cannot be read, or the cache cannot be written.
+     */
+    File fetch(URL url) throws IOException {
+        if(!directory.isDirectory() && !directory.mkdirs())
+        {
+            throw new IOException(String.format("Cache directory %s could not be created. ", directory));
+        }
+
+        String key = sha256(url.toString().getBytes(StandardCharsets.UTF_8));
+        File metadataFile = new File(directory, key + ".properties");
+        Properties metadata = new Properties();
+        File cached = null;
+        if(metadataFile.isFile())
+        {
+            try (InputStream in = new FileInputStream(metadataFile)) {
+                metadata.load(in);
+            }
+            cached = new File(directory, metadata.getProperty("content", "") + CONTENT_EXTENSION);
+            if(!cached.isFile())
+            {
+                cached = null; //evicted
+            }
+        }
+
+        boolean conditional = cached != null;
+        HttpURLConnection connection = SegmentedDownload.connect(url, connections, segmentBytes, request -> {
+            if(conditional)
+            {
+                String eTag = metadata.getProperty("etag");
+                if(eTag != null)
+                {
+                    request.setRequestProperty("If-None-Match", eTag);
+                }
+                long lastModified = Long.parseLong(metadata.getProperty("lastModified", "0"));
+                if(lastModified > 0)
+                {
+                    request.setIfModifiedSince(lastModified);
+                }
+            }
+        });
+
+        try {
+            int status = connection.getResponseCode();
+            if(status == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null)
+            {
+                touch(cached);
+                return cached;
+            }
+            if(status != HttpURLConnection.HTTP_OK && status != HttpURLConnection.HTTP_PARTIAL)
+            {
+                throw new IOException(String.format("HTTP %d from %s. ", status, url));
+            }
+
+            File content = download(SegmentedDownload.body(url, connection, connections, segmentBytes));
+
+            metadata.clear();
+            metadata.setProperty("url", url.toString());
+            metadata.setProperty("content", content.getName().substring(0, content.getName().length() - CONTENT_EXTENSION.length()));
+            if(connection.getHeaderField("ETag") != null)
+            {
+                metadata.setProperty("etag", connection.getHeaderField("ETag"));
+            }
+            if(connection.getLastModified() > 0)
+            {
+                metadata.setProperty("lastModified", Long.toString(connection.getLastModified()));
+            }
+            File metadataTemp = File.createTempFile(key, ".tmp", directory);
+            try (OutputStream out = new FileOutputStream(metadataTemp)) {
+                metadata.store(out, null);
+            }
+            Files.move(metadataTemp.toPath(), metadataFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+            evict(content);
+            return content;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Copy the response body into the cache, named by the hash of its content.
+     */
+    private File download(InputStream body) throws IOException {
+        File temp = File.createTempFile("download", ".tmp", directory);
+        MessageDigest digest = newDigest();
+        try (InputStream in = new DigestInputStream(body, digest)) {
+            Files.copy(in, temp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            temp.delete();
+            throw e;
+        }
+
+        File content = new File(directory, hex(digest.digest()) + CONTENT_EXTENSION);
+        if(content.isFile())
+        {
+            temp.delete(); //same content as another URL, or as before the change was detected
+        }
+        else
+        {
+            Files.move(temp.toPath(), content.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        touch(content);
+        return content;
+    }
+
+    /**
+     * Delete the least recently used content until the cache fits in maxBytes. Content in use by this fetch is kept.
+     */
+    private void evict(File keep) {
+        File[] contents = directory.listFiles((dir, name) -> name.endsWith(CONTENT_EXTENSION));
+        if(contents == null)
+        {
+            return;
+        }
+        ArrayList<File> byLastUse = new ArrayList<>();
+        long total = 0;
+        for(File content: contents)
+        {
+            total += content.length();
+            if(!content.equals(keep))
+            {
+                byLastUse.add(content);
+            }
+        }
+        byLastUse.sort(Comparator.comparingLong(File::lastModified));
+        for(File content: byLastUse)
+        {
+            if(total <= maxBytes)
+            {
+                break;
+            }
+            long length = content.length();
+            if(content.delete())
+            {
+                total -= length;
+            }
+        }
+    }
+
+    //the modification time of content files is their last use
+    private static void touch(File content) {
+        content.setLastModified(System.currentTimeMillis());
+    }
+
+    private static String sha256(byte[] bytes) {
+        return hex(newDigest().digest(bytes));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); //every JVM supports SHA-256
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for(byte b: bytes)
+        {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}